@@ -0,0 +1,243 @@
+package com.softwareplumbers.feed.rest.client.spring;
+
+import com.softwareplumbers.feed.Message;
+import java.io.PrintWriter;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/** Adapts long-poll parameters to the rate at which messages arrive on each subscription.
+ *
+ * Idle subscriptions (those expecting less than one message per requested timeout)
+ * wait as long as possible, so fewer requests are made. Other subscriptions wait for
+ * the timeout requested by the caller; since a long poll returns as soon as messages
+ * are available, busy subscriptions gain nothing from a shorter wait, unless shorter
+ * busy waits are explicitly enabled. Busy subscriptions ask the server to linger
+ * after the first message is available, so that each request returns a larger batch.
+ * The linger is the time expected to accumulate the target batch size at the
+ * observed arrival rate, capped at the maximum linger.
+ *
+ * Statistics for a subscription which makes no requests for longer than the idle
+ * timeout are discarded, so a long-lived client does not accumulate statistics for
+ * every path and filter it has ever listened to.
+ *
+ * @author Jonathan Essex
+ */
+public class AdaptivePolling {
+
+    /** Arrival rate and request statistics for one subscription. */
+    public class Subscription {
+        private final long created = clock.getAsLong();
+        private long lastRequest = 0;
+        private long requests = 0;
+        private long messages = 0;
+        private long messagesSinceLastRequest = 0;
+        private double rate = 0;
+
+        /** Record that a request is about to be made.
+         *
+         * Updates the arrival rate estimate from messages received since the last request.
+         */
+        public synchronized void request() {
+            long now = clock.getAsLong();
+            if (lastRequest > 0 && now > lastRequest) {
+                double observed = messagesSinceLastRequest * 1000.0 / (now - lastRequest);
+                rate = rate + SMOOTHING * (observed - rate);
+            }
+            lastRequest = now;
+            messagesSinceLastRequest = 0;
+            requests++;
+        }
+
+        /** Record receipt of a message.
+         *
+         * Always returns true, so this may be used as a message filter.
+         *
+         * @param message Message received
+         * @return true
+         */
+        public synchronized boolean received(Message message) {
+            messages++;
+            messagesSinceLastRequest++;
+            return true;
+        }
+
+        /** Get the wait time for the next request.
+         *
+         * The wait is never less than the caller's timeout unless shorter busy waits
+         * are enabled.
+         *
+         * @param timeoutMillis Wait requested by the caller
+         * @return Wait time in milliseconds
+         */
+        public synchronized long getWait(long timeoutMillis) {
+            if (rate <= 0 || 1000.0 / rate >= timeoutMillis) return Math.max(timeoutMillis, maxWaitMillis);
+            if (!shortenBusyWaits) return timeoutMillis;
+            long expectedInterval = (long)(1000.0 / rate);
+            return Math.max(Math.min(minWaitMillis, timeoutMillis), Math.min(timeoutMillis, expectedInterval * 4));
+        }
+
+        /** Get the server-side linger for the next request.
+         *
+         * @return Linger time in milliseconds, or zero if the subscription is not busy
+         */
+        public synchronized long getLinger() {
+            if (rate * maxLingerMillis / 1000.0 < 2) return 0;
+            return Math.min(maxLingerMillis, (long)(targetBatchSize * 1000.0 / rate));
+        }
+
+        /** Get the estimated message arrival rate.
+         *
+         * @return Messages per second
+         */
+        public synchronized double getMessagesPerSecond() {
+            return rate;
+        }
+
+        /** Get the mean number of messages received per request.
+         *
+         * @return Messages per request
+         */
+        public synchronized double getMessagesPerRequest() {
+            return requests == 0 ? 0 : (double)messages / requests;
+        }
+
+        /** Get the mean rate at which requests have been made.
+         *
+         * @return Requests per second
+         */
+        public synchronized double getRequestsPerSecond() {
+            long elapsed = clock.getAsLong() - created;
+            return elapsed <= 0 ? 0 : requests * 1000.0 / elapsed;
+        }
+
+        private synchronized boolean isIdle(long now) {
+            return now - Math.max(created, lastRequest) > idleTimeoutMillis;
+        }
+
+        @Override
+        public synchronized String toString() {
+            return String.format("%.1f messages/s, %.1f messages/request, %.2f requests/s", rate, getMessagesPerRequest(), getRequestsPerSecond());
+        }
+    }
+
+    /** Weight given to the most recent observation of arrival rate */
+    private static final double SMOOTHING = 0.3;
+
+    private final Map<String, Subscription> subscriptions = new ConcurrentHashMap<>();
+    private final LongSupplier clock;
+    private volatile long lastSweep;
+    private long idleTimeoutMillis = 600000;
+    private long minWaitMillis = 1000;
+    private boolean shortenBusyWaits = false;
+    private long maxWaitMillis = 0;
+    private long maxLingerMillis = 0;
+    private int targetBatchSize = 100;
+
+    /** Create adaptive polling statistics. */
+    public AdaptivePolling() {
+        this(System::currentTimeMillis);
+    }
+
+    /** Create adaptive polling statistics with the given clock.
+     *
+     * @param clock Supplies the current time in milliseconds
+     */
+    AdaptivePolling(LongSupplier clock) {
+        this.clock = clock;
+        this.lastSweep = clock.getAsLong();
+    }
+
+    /** Set the time after which statistics for an unused subscription are discarded.
+     *
+     * @param idleTimeoutMillis Idle timeout in milliseconds
+     */
+    public void setIdleTimeoutMillis(long idleTimeoutMillis) {
+        this.idleTimeoutMillis = idleTimeoutMillis;
+    }
+
+    /** Set whether busy subscriptions may wait for less than the caller's timeout.
+     *
+     * When enabled, busy subscriptions wait for about four times the expected interval
+     * between messages, but no less than the minimum wait. This bounds the time a
+     * request stays open, at the cost of more requests when the feed goes quiet.
+     *
+     * @param shortenBusyWaits true to allow waits shorter than the caller's timeout
+     */
+    public void setShortenBusyWaits(boolean shortenBusyWaits) {
+        this.shortenBusyWaits = shortenBusyWaits;
+    }
+
+    /** Set the minimum wait time for busy subscriptions, when shorter busy waits are enabled.
+     *
+     * @param minWaitMillis Minimum wait in milliseconds
+     */
+    public void setMinWaitMillis(long minWaitMillis) {
+        this.minWaitMillis = minWaitMillis;
+    }
+
+    /** Set the maximum wait time for idle subscriptions.
+     *
+     * If this is greater than the timeout requested by the caller, idle subscriptions
+     * will wait for up to this time, and so may complete later than the caller asked.
+     *
+     * @param maxWaitMillis Maximum wait in milliseconds
+     */
+    public void setMaxWaitMillis(long maxWaitMillis) {
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    /** Set the maximum time the server is asked to linger to build a larger batch.
+     *
+     * Zero (the default) disables lingering. Requires a server which supports the
+     * 'linger' request parameter.
+     *
+     * @param maxLingerMillis Maximum linger in milliseconds
+     */
+    public void setMaxLingerMillis(long maxLingerMillis) {
+        this.maxLingerMillis = maxLingerMillis;
+    }
+
+    /** Set the number of messages per request which lingering aims to achieve.
+     *
+     * @param targetBatchSize Target messages per request
+     */
+    public void setTargetBatchSize(int targetBatchSize) {
+        this.targetBatchSize = targetBatchSize;
+    }
+
+    /** Get statistics for a subscription, creating them if necessary.
+     *
+     * @param key Key identifying subscription
+     * @return Statistics for the subscription
+     */
+    public Subscription getSubscription(String key) {
+        evictIdle();
+        return subscriptions.computeIfAbsent(key, k -> new Subscription());
+    }
+
+    /** Discard idle subscriptions, at most once per idle timeout. */
+    private void evictIdle() {
+        long now = clock.getAsLong();
+        if (now - lastSweep < idleTimeoutMillis) return;
+        lastSweep = now;
+        subscriptions.values().removeIf(subscription -> subscription.isIdle(now));
+    }
+
+    /** Get statistics for all subscriptions.
+     *
+     * @return Map of subscription key to statistics
+     */
+    public Map<String, Subscription> getSubscriptions() {
+        return Collections.unmodifiableMap(subscriptions);
+    }
+
+    /** Print statistics for all subscriptions.
+     *
+     * @param out Writer to print to
+     */
+    public void dumpState(PrintWriter out) {
+        subscriptions.forEach((key, subscription) -> out.println(key + ": " + subscription));
+    }
+}
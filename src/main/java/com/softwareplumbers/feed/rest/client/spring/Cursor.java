@@ -0,0 +1,153 @@
+package com.softwareplumbers.feed.rest.client.spring;
+
+import com.softwareplumbers.feed.FeedService;
+import com.softwareplumbers.feed.Message;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.function.Predicate;
+import javax.json.Json;
+import javax.json.JsonObject;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+
+/** Position of a consumer in a subscription to a feed service.
+ *
+ * Records the timestamp and id of the last message processed, together with the
+ * identity of the server which assigned that timestamp. The server identity allows
+ * a consumer to tell whether a stored cursor is still meaningful when resuming.
+ *
+ * @author Jonathan Essex
+ */
+public class Cursor {
+
+    private static final XLogger LOG = XLoggerFactory.getXLogger(Cursor.class);
+
+    /** Timestamp of last message processed */
+    public final Instant timestamp;
+    /** Id of last message processed */
+    public final String messageId;
+    /** Id of the server which assigned the timestamp */
+    public final UUID serverId;
+    /** Initialization time of the server which assigned the timestamp */
+    public final Instant serverInitTime;
+
+    /** Create a new cursor.
+     *
+     * @param timestamp Timestamp of last message processed
+     * @param messageId Id of last message processed
+     * @param serverId Id of the server which assigned the timestamp
+     * @param serverInitTime Initialization time of the server which assigned the timestamp
+     */
+    public Cursor(Instant timestamp, String messageId, UUID serverId, Instant serverInitTime) {
+        this.timestamp = timestamp;
+        this.messageId = messageId;
+        this.serverId = serverId;
+        this.serverInitTime = serverInitTime;
+    }
+
+    /** Create a cursor positioned at a message received from a service.
+     *
+     * @param message Last message processed
+     * @param service Service from which the message was received
+     * @return A cursor positioned at the given message
+     */
+    public static Cursor of(Message message, FeedService service) {
+        return new Cursor(message.getTimestamp(), message.getName().toString(), service.getServerId(), service.getInitTime());
+    }
+
+    /** Check whether the server has restarted since this cursor was saved.
+     *
+     * @param service Service to which the subscription will be made
+     * @return true if the service has the same identity but a different initialization time
+     */
+    public boolean hasRestarted(FeedService service) {
+        return serverId.equals(service.getServerId()) && !serverInitTime.equals(service.getInitTime());
+    }
+
+    /** Get the point from which a subscription to a service should resume.
+     *
+     * If the service is the server which assigned this cursor's timestamp, the timestamp
+     * is returned, even if that server has restarted since the cursor was saved. The
+     * server id identifies the server's message store rather than the running process;
+     * messages in that store keep their timestamps across a restart, and a restarted
+     * server never assigns a timestamp earlier than one it has already assigned, so
+     * no message posted after the cursor can be missed by resuming from it. Callers
+     * which cache other server state can use hasRestarted to decide when to refresh it.
+     *
+     * If the server identity has changed, the timestamp cannot be compared with
+     * timestamps assigned by the new server, and the fallback is returned instead.
+     *
+     * @param service Service to which the subscription will be made
+     * @param fallback Point from which to resume if this cursor is not valid for the service
+     * @return The point from which to resume the subscription
+     */
+    public Instant resumeFrom(FeedService service, Instant fallback) {
+        LOG.entry(service, fallback);
+        if (!serverId.equals(service.getServerId())) {
+            LOG.debug("Server changed from {} to {}, resuming from {}", serverId, service.getServerId(), fallback);
+            return LOG.exit(fallback);
+        }
+        if (hasRestarted(service)) {
+            LOG.debug("Server {} restarted at {}, resuming from {}", serverId, service.getInitTime(), timestamp);
+        }
+        return LOG.exit(timestamp);
+    }
+
+    /** Get a filter which excludes the message at which this cursor is positioned.
+     *
+     * Useful where a subscription is resumed with an inclusive start time.
+     *
+     * @return A filter which excludes the last message processed
+     */
+    public Predicate<Message> unprocessed() {
+        return message -> !(timestamp.equals(message.getTimestamp()) && messageId.equals(message.getName().toString()));
+    }
+
+    /** Convert cursor to JSON.
+     *
+     * @return JSON representation of cursor
+     */
+    public JsonObject toJson() {
+        return Json.createObjectBuilder()
+            .add("timestamp", timestamp.toString())
+            .add("messageId", messageId)
+            .add("serverId", serverId.toString())
+            .add("serverInitTime", serverInitTime.toString())
+            .build();
+    }
+
+    /** Create cursor from JSON.
+     *
+     * @param object JSON representation of cursor
+     * @return A cursor
+     */
+    public static Cursor fromJson(JsonObject object) {
+        return new Cursor(
+            Instant.parse(object.getString("timestamp")),
+            object.getString("messageId"),
+            UUID.fromString(object.getString("serverId")),
+            Instant.parse(object.getString("serverInitTime"))
+        );
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof Cursor)) return false;
+        Cursor cursor = (Cursor)other;
+        return timestamp.equals(cursor.timestamp)
+            && messageId.equals(cursor.messageId)
+            && serverId.equals(cursor.serverId)
+            && serverInitTime.equals(cursor.serverInitTime);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(timestamp, messageId, serverId, serverInitTime);
+    }
+
+    @Override
+    public String toString() {
+        return toJson().toString();
+    }
+}
@@ -0,0 +1,54 @@
+package com.softwareplumbers.feed.rest.client.spring;
+
+import com.softwareplumbers.feed.FeedService;
+import com.softwareplumbers.feed.Message;
+import java.io.IOException;
+import java.util.Optional;
+
+/** Stores the position of consumers in their subscriptions to a feed service.
+ *
+ * A consumer of listen or watch checkpoints each message it processes; after a
+ * restart, it uses the stored cursor to resume its subscription where it left off.
+ * FeedServiceImpl.stream can be given a store and subscription name, in which case
+ * it resumes from and checkpoints the subscription itself; callers of listen and
+ * watch must get the cursor and checkpoint each message themselves.
+ * Implementations may defer persisting checkpoints, so flush must be called to be
+ * certain that all checkpoints are durable.
+ *
+ * @author Jonathan Essex
+ */
+public interface CursorStore extends AutoCloseable {
+
+    /** Get the stored position of a subscription.
+     *
+     * @param subscription Name of subscription
+     * @return The last checkpointed cursor, if any
+     */
+    Optional<Cursor> get(String subscription);
+
+    /** Record the position of a subscription.
+     *
+     * @param subscription Name of subscription
+     * @param cursor Position of subscription
+     */
+    void checkpoint(String subscription, Cursor cursor);
+
+    /** Record the last message processed by a subscription.
+     *
+     * @param subscription Name of subscription
+     * @param message Last message processed
+     * @param service Service from which message was received
+     */
+    default void checkpoint(String subscription, Message message, FeedService service) {
+        checkpoint(subscription, Cursor.of(message, service));
+    }
+
+    /** Ensure all checkpoints are durable.
+     *
+     * @throws IOException if checkpoints could not be written
+     */
+    void flush() throws IOException;
+
+    @Override
+    void close() throws IOException;
+}
@@ -0,0 +1,82 @@
+package com.softwareplumbers.feed.rest.client.spring;
+
+import com.softwareplumbers.feed.FeedService;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.web.util.UriTemplate;
+
+/** Client for many Doctane repositories on the same server.
+ *
+ * All repositories share a single request factory, upload settings and thread pool
+ * for asynchronous requests, and a single credential cache. A lightweight FeedService
+ * is created on demand for each repository.
+ *
+ * The request factory does not pool connections itself. Connection reuse is provided
+ * by the JDK's HTTP keep-alive cache, which is process-wide whether or not the factory
+ * is shared, and by default keeps only 5 idle connections per host. Clients working
+ * with many repositories concurrently on one server should raise the
+ * 'http.maxConnections' system property accordingly.
+ *
+ * URLs are templates with a 'repository' parameter, for example:
+ * ```
+ * http://localhost:8080/feed/{repository}/
+ * ```
+ *
+ * @author Jonathan Essex
+ */
+public class FeedClient implements AutoCloseable {
+
+    private static final XLogger LOG = XLoggerFactory.getXLogger(FeedClient.class);
+
+    private final UriTemplate feedsUrl;
+    private final UriTemplate serviceUrl;
+    private final MultiRepositoryLoginHandler loginHandler;
+    private final SimpleClientHttpRequestFactory requestFactory;
+    private final Map<String, FeedServiceImpl> services = new ConcurrentHashMap<>();
+
+    private FeedServiceImpl createService(String repository) {
+        LOG.entry(repository);
+        Map<String, String> params = Collections.singletonMap("repository", repository);
+        return LOG.exit(new FeedServiceImpl(
+            feedsUrl.expand(params).toString(),
+            serviceUrl.expand(params).toString(),
+            loginHandler.forRepository(repository),
+            requestFactory
+        ));
+    }
+
+    /** Create a client for many repositories.
+     *
+     * The login handler will be configured to use the client's request factory.
+     *
+     * @param feedsUrl Template for the URL for Doctane feed operations
+     * @param serviceUrl Template for the URL for Doctane service information
+     * @param loginHandler Login handler for all repositories
+     */
+    public FeedClient(String feedsUrl, String serviceUrl, MultiRepositoryLoginHandler loginHandler) {
+        this.feedsUrl = new UriTemplate(feedsUrl);
+        this.serviceUrl = new UriTemplate(serviceUrl);
+        this.loginHandler = loginHandler;
+        this.requestFactory = FeedServiceImpl.createRequestFactory();
+        loginHandler.setRequestFactory(requestFactory);
+    }
+
+    /** Get the feed service for a repository.
+     *
+     * @param repository Name of repository
+     * @return A feed service for the given repository
+     */
+    public FeedService getService(String repository) {
+        return services.computeIfAbsent(repository, this::createService);
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (FeedServiceImpl service : services.values()) service.close();
+        services.clear();
+    }
+}
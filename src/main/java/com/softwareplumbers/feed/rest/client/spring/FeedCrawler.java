@@ -0,0 +1,238 @@
+package com.softwareplumbers.feed.rest.client.spring;
+
+import com.softwareplumbers.feed.Feed;
+import com.softwareplumbers.feed.FeedExceptions;
+import com.softwareplumbers.feed.FeedService;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+
+/** Walks a feed hierarchy, fetching the children of many feeds concurrently.
+ *
+ * Children are fetched via the FeedService, so any caching performed by the service
+ * is respected. The number of concurrent requests is bounded by the parallelism of the
+ * crawler, which is shared by all crawls in progress. Feeds are streamed to the caller
+ * as they are discovered; the order in which they are returned is not defined.
+ *
+ * Discovered feeds are held in a bounded buffer. When the consumer falls behind, the
+ * crawler threads block until it catches up. If the consumer takes nothing for longer
+ * than the stall timeout (for example, because the stream was abandoned after a
+ * findFirst without being closed) the crawl is cancelled. A crawl which is cancelled
+ * in this way, or because the crawler is closed, ends with a CancellationException
+ * rather than appearing to complete, so a truncated listing is never mistaken for a
+ * complete one.
+ *
+ * All crawls share the crawler's threads. While a consumer is not keeping up, the
+ * threads working on its crawl wait for it (for up to the stall timeout), and are not
+ * available to other crawls. Consumers which may be slow should use a crawler of
+ * their own, or a shorter stall timeout.
+ *
+ * @author Jonathan Essex
+ */
+public class FeedCrawler implements AutoCloseable {
+
+    private static final XLogger LOG = XLoggerFactory.getXLogger(FeedCrawler.class);
+
+    /** Marks the end of a crawl in the result queue */
+    private static final Object END = new Object();
+
+    private final ExecutorService executor;
+    private final Set<Crawl> crawls = ConcurrentHashMap.newKeySet();
+    private int maxDepth = Integer.MAX_VALUE;
+    private int bufferSize = 256;
+    private long stallTimeoutMillis = 60000;
+
+    private class Crawl extends Spliterators.AbstractSpliterator<Feed> {
+
+        private final FeedService service;
+        private final BlockingQueue<Object> results = new LinkedBlockingQueue<>(bufferSize);
+        private final AtomicInteger pending = new AtomicInteger();
+        private final AtomicBoolean terminated = new AtomicBoolean();
+        private volatile boolean cancelled = false;
+
+        public Crawl(FeedService service) {
+            super(Long.MAX_VALUE, Spliterator.NONNULL);
+            this.service = service;
+        }
+
+        /** Put an item on the result queue, waiting while the consumer catches up.
+         *
+         * @return false if the crawl was cancelled before the item could be queued
+         */
+        private boolean publish(Object item) {
+            long started = System.currentTimeMillis();
+            try {
+                while (!cancelled) {
+                    if (results.offer(item, 100, TimeUnit.MILLISECONDS)) return true;
+                    if (System.currentTimeMillis() - started > stallTimeoutMillis) {
+                        LOG.warn("Feed crawl abandoned by consumer, cancelling");
+                        abort(new CancellationException("Feed crawl cancelled: consumer took no feeds for " + stallTimeoutMillis + "ms"));
+                    }
+                }
+            } catch (InterruptedException e) {
+                abort(new CancellationException("Feed crawl interrupted"));
+                Thread.currentThread().interrupt();
+            }
+            return false;
+        }
+
+        /** Stop the crawl, replacing anything buffered with the reason it stopped.
+         *
+         * The reason is queued regardless of the consumer, so a consumer waiting for
+         * the next feed always wakes up.
+         */
+        public void abort(RuntimeException reason) {
+            cancelled = true;
+            if (!terminated.compareAndSet(false, true)) return;
+            crawls.remove(this);
+            results.clear();
+            while (!results.offer(reason)) results.poll();
+        }
+
+        private void fetchChildren(Feed feed, int depth) {
+            try (Stream<Feed> children = feed.getChildren(service)) {
+                Iterator<Feed> iterator = children.iterator();
+                while (!cancelled && iterator.hasNext()) {
+                    Feed child = iterator.next();
+                    if (publish(child) && depth + 1 < maxDepth) expand(child, depth + 1);
+                }
+            }
+        }
+
+        private void finished() {
+            if (pending.decrementAndGet() == 0 && publish(END)) {
+                terminated.set(true);
+                crawls.remove(this);
+            }
+        }
+
+        public void expand(Feed feed, int depth) {
+            pending.incrementAndGet();
+            try {
+                executor.execute(() -> {
+                    try {
+                        if (!cancelled) fetchChildren(feed, depth);
+                    } catch (RuntimeException e) {
+                        LOG.catching(e);
+                        abort(e);
+                    } finally {
+                        finished();
+                    }
+                });
+            } catch (RuntimeException e) {
+                abort(e);
+                finished();
+            }
+        }
+
+        public void cancel() {
+            cancelled = true;
+            crawls.remove(this);
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Feed> action) {
+            try {
+                Object next = results.take();
+                if (next == END) {
+                    results.offer(END);
+                    return false;
+                }
+                if (next instanceof RuntimeException) {
+                    results.offer(next);
+                    throw (RuntimeException)next;
+                }
+                action.accept((Feed)next);
+                return true;
+            } catch (InterruptedException e) {
+                cancel();
+                Thread.currentThread().interrupt();
+                throw FeedExceptions.runtime(e);
+            }
+        }
+    }
+
+    /** Create a new crawler.
+     *
+     * @param parallelism Maximum number of feeds whose children are fetched concurrently
+     */
+    public FeedCrawler(int parallelism) {
+        this.executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "feed-crawler");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /** Set the maximum depth of a crawl.
+     *
+     * Depth 1 returns only the immediate children of the root feed.
+     *
+     * @param maxDepth Maximum depth of feeds returned, relative to the root
+     */
+    public void setMaxDepth(int maxDepth) {
+        this.maxDepth = maxDepth;
+    }
+
+    /** Set the number of discovered feeds buffered ahead of the consumer.
+     *
+     * @param bufferSize Maximum number of feeds buffered by each crawl
+     */
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    /** Set the time after which a crawl is cancelled if the consumer takes nothing.
+     *
+     * @param stallTimeoutMillis Stall timeout in milliseconds
+     */
+    public void setStallTimeoutMillis(long stallTimeoutMillis) {
+        this.stallTimeoutMillis = stallTimeoutMillis;
+    }
+
+    /** Get all descendants of a feed.
+     *
+     * The root feed itself is not included. Closing the returned stream stops the crawl.
+     *
+     * @param service Service from which feeds are fetched
+     * @param root Feed at which to start crawling
+     * @return A stream of feeds, returned as they are discovered
+     */
+    public Stream<Feed> crawl(FeedService service, Feed root) {
+        LOG.entry(service, root);
+        Crawl crawl = new Crawl(service);
+        crawls.add(crawl);
+        if (maxDepth > 0) {
+            crawl.expand(root, 0);
+        } else {
+            crawl.pending.incrementAndGet();
+            crawl.finished();
+        }
+        return LOG.exit(StreamSupport.stream(crawl, false).onClose(crawl::cancel));
+    }
+
+    /** Stop the crawler.
+     *
+     * Crawls still in progress end with a CancellationException.
+     */
+    @Override
+    public void close() {
+        for (Crawl crawl : crawls) crawl.abort(new CancellationException("Feed crawler closed"));
+        executor.shutdownNow();
+    }
+}
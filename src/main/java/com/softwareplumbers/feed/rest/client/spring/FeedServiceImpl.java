@@ -23,10 +23,11 @@ import com.softwareplumbers.feed.impl.MessageFactory;
 import com.softwareplumbers.feed.impl.MessageImpl;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.PrintWriter;
-import java.io.StringReader;
 import java.net.URI;
 import java.time.Instant;
 import java.util.Base64;
@@ -34,25 +35,31 @@ import java.util.Collections;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
 import javax.json.Json;
 import javax.json.JsonArray;
 import javax.json.JsonObject;
+import javax.json.JsonReaderFactory;
 import javax.json.JsonWriter;
+import javax.json.stream.JsonParser;
+import javax.json.stream.JsonParserFactory;
 import org.slf4j.ext.XLogger;
 import org.slf4j.ext.XLoggerFactory;
-import org.springframework.core.io.InputStreamResource;
-import org.springframework.http.HttpEntity;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpRequest;
 import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.util.concurrent.ListenableFuture;
 import org.springframework.web.client.AsyncRestTemplate;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResponseExtractor;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
 
@@ -63,12 +70,37 @@ import org.springframework.web.util.UriComponentsBuilder;
 public class FeedServiceImpl implements FeedService {
     
     private static final XLogger LOG = XLoggerFactory.getXLogger(FeedServiceImpl.class);
+    private static final JsonReaderFactory JSON_READERS = Json.createReaderFactory(Collections.emptyMap());
+    private static final JsonParserFactory JSON_PARSERS = Json.createParserFactory(Collections.emptyMap());
+    
+    /** Name of the property which lists child feeds in the JSON representation of a feed.
+     * 
+     * Must match the property read by Feed.getChildren in feed-interface-core, which
+     * this client used before child feeds were streamed; TestJsonStreams checks the two
+     * agree on a feed document.
+     */
+    static final String CHILDREN = "children";
+    /** Responses of known length up to this size are read fully and the connection released */
+    private static final long MAX_BUFFERED_RESPONSE = 64 * 1024;
+    
+    /** Default size of buffer (and of HTTP chunks) used when uploading messages */
+    public static final int DEFAULT_UPLOAD_BUFFER_SIZE = 64 * 1024;
  
     private String feedsUrl;
     private String serviceUrl;
     private char pathEscapeChar = '$';
     private LoginHandler loginHandler;
     private final MessageFactory factory = new MessageFactory();
+    private OutboundSpool outboundSpool;
+    private FeedCrawler feedCrawler;
+    private ReplicationFilter replicationFilter;
+    private AdaptivePolling adaptivePolling;
+    private final SimpleClientHttpRequestFactory requestFactory;
+    private final RestTemplate restTemplate;
+    private final AsyncRestTemplate asyncRestTemplate;
+    private final ResponseExtractor<JsonObject> jsonExtractor = response -> JSON_READERS.createReader(response.getBody()).readObject();
+    private int uploadBufferSize = DEFAULT_UPLOAD_BUFFER_SIZE;
+    private long streamIdleTimeoutMillis = 60000;
     
     
     private static class ServiceInfo {
@@ -129,15 +161,140 @@ public class FeedServiceImpl implements FeedService {
         this.pathEscapeChar = pathEscapeChar;
     }
     
+    /** Set a spool for write-behind posting of messages.
+     * 
+     * When a spool is set, post will append the message to the spool and return
+     * immediately; messages are then sent to the server in the background. The
+     * message returned by post is the message as submitted, since the server has
+     * not yet assigned a timestamp. If the spool is full, post will throw a runtime
+     * exception wrapping a ServerError.
+     * 
+     * Spooled messages survive a restart of the process. They survive an operating
+     * system crash or power failure only if the spool is set to sync on append.
+     * 
+     * The spool is started by this call, and closed when the service is closed.
+     * 
+     * @param outboundSpool Spool for outgoing messages, or null to post synchronously
+     */
+    public void setOutboundSpool(OutboundSpool outboundSpool) {
+        this.outboundSpool = outboundSpool;
+        if (outboundSpool != null) outboundSpool.start(this::sendSpooled);
+    }
+    
+    /** Set a crawler used to fetch the feed hierarchy in parallel.
+     * 
+     * When a crawler is set, getFeeds returns all feeds in the hierarchy (down to the
+     * maximum depth of the crawler) as they are fetched. Otherwise, getFeeds returns 
+     * only the immediate children of the root feed.
+     * 
+     * @param feedCrawler Crawler used by getFeeds, or null
+     */
+    public void setFeedCrawler(FeedCrawler feedCrawler) {
+        this.feedCrawler = feedCrawler;
+    }
+    
+    /** Set a filter used to skip replication of duplicate messages.
+     * 
+     * When a filter is set, replicate will return the given message without contacting
+     * the server if the filter reports that it has already been replicated to this
+     * server. Only successfully replicated messages are added to the filter.
+     * 
+     * @param replicationFilter Filter for replicated messages, or null
+     */
+    public void setReplicationFilter(ReplicationFilter replicationFilter) {
+        this.replicationFilter = replicationFilter;
+    }
+    
+    /** Set adaptive control of long-poll parameters for listen and watch.
+     * 
+     * When set, the wait time (and optional server-side linger) of each listen or watch
+     * request is adjusted to the observed message arrival rate of the subscription.
+     * Idle subscriptions may wait longer than the requested timeout (up to the policy's
+     * maximum wait); a subscription never waits for less than the requested timeout
+     * unless the policy has shorter busy waits enabled.
+     * 
+     * @param adaptivePolling Adaptive polling policy and statistics, or null
+     */
+    public void setAdaptivePolling(AdaptivePolling adaptivePolling) {
+        this.adaptivePolling = adaptivePolling;
+    }
+    
+    /** Set the time after which a quiet streaming connection is reopened.
+     * 
+     * Streaming connections carry no data while a feed is quiet, so a connection
+     * which has silently died can only be detected by timing out.
+     * 
+     * @param streamIdleTimeoutMillis Read timeout for streaming connections in milliseconds
+     */
+    public void setStreamIdleTimeoutMillis(long streamIdleTimeoutMillis) {
+        this.streamIdleTimeoutMillis = streamIdleTimeoutMillis;
+    }
+    
+    /** Set the buffer size used when uploading messages.
+     * 
+     * Message uploads are streamed to the server using chunked transfer encoding, so
+     * this is also the size of each HTTP chunk. The chunk size applies to all services
+     * sharing this service's request factory.
+     * 
+     * @param uploadBufferSize Buffer size in bytes
+     */
+    public void setUploadBufferSize(int uploadBufferSize) {
+        this.uploadBufferSize = uploadBufferSize;
+        requestFactory.setChunkSize(uploadBufferSize);
+    }
+    
+    /** Create a request factory suitable for use by one or more services.
+     * 
+     * The factory streams request bodies rather than buffering them, and supports
+     * asynchronous requests. Connections are kept alive and reused by the underlying
+     * JDK HTTP client.
+     * 
+     * @return A new request factory
+     */
+    public static SimpleClientHttpRequestFactory createRequestFactory() {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setBufferRequestBody(false);
+        requestFactory.setChunkSize(DEFAULT_UPLOAD_BUFFER_SIZE);
+        requestFactory.setTaskExecutor(new SimpleAsyncTaskExecutor("feed-client-"));
+        return requestFactory;
+    }
+    
+    /** Create a request factory for streaming connections.
+     * 
+     * @param idleTimeoutMillis Read timeout, after which a quiet connection is abandoned
+     * @return A request factory with the given read timeout
+     */
+    static SimpleClientHttpRequestFactory createStreamingRequestFactory(long idleTimeoutMillis) {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setBufferRequestBody(false);
+        requestFactory.setReadTimeout((int)Math.min(idleTimeoutMillis, Integer.MAX_VALUE));
+        return requestFactory;
+    }
+    
+    /** Construct a service using URL, login handler, and a shared request factory.
+     * 
+     * @param feedsUrl URL for Doctane feed operations
+     * @param serviceUrl URL for Doctane service information
+     * @param loginHandler Login handler which handle authentication process
+     * @param requestFactory Request factory, which may be shared with other services
+     * @see #createRequestFactory() 
+     */
+    public FeedServiceImpl(String feedsUrl, String serviceUrl, LoginHandler loginHandler, SimpleClientHttpRequestFactory requestFactory) {
+        this.feedsUrl = feedsUrl;
+        this.serviceUrl = serviceUrl;
+        this.loginHandler = loginHandler;
+        this.requestFactory = requestFactory;
+        this.restTemplate = new RestTemplate(requestFactory);
+        this.asyncRestTemplate = new AsyncRestTemplate(requestFactory, restTemplate);
+    }
+    
     /** Construct a service using URL and login handler.
      * 
      * @param docsUrl
      * @param loginHandler 
      */
     public FeedServiceImpl(String feedsUrl, String serviceUrl, LoginHandler loginHandler) {
-        this.feedsUrl = feedsUrl;
-        this.serviceUrl = serviceUrl;
-        this.loginHandler = loginHandler;
+        this(feedsUrl, serviceUrl, loginHandler, createRequestFactory());
     }
     
     /** Construct an uninitialized service.
@@ -149,7 +306,26 @@ public class FeedServiceImpl implements FeedService {
     }
     
     
-    /** Send a JSON object to the server.
+    /** Copy a stream to the body of a request.
+     * 
+     * Streams are copied through a single buffer of the given size, so memory use does
+     * not depend on the size of the stream.
+     * 
+     * @param in Stream to copy
+     * @param out Stream to copy to
+     * @param bufferSize Size of copy buffer
+     * @throws IOException 
+     */
+    protected static void copy(InputStream in, OutputStream out, int bufferSize) throws IOException {
+        byte[] buffer = new byte[bufferSize];
+        int read;
+        while ((read = in.read(buffer)) >= 0) out.write(buffer, 0, read);
+    }
+    
+    /** Send a stream to the server.
+     * 
+     * The stream is sent using chunked transfer encoding, without buffering the
+     * request body in memory. The response is parsed directly from the response stream.
      * 
      * @param uri URI to which we will send the data
      * @param method HTTP method used to send the data (POST or PUT)
@@ -159,35 +335,40 @@ public class FeedServiceImpl implements FeedService {
      */
     protected JsonObject sendStream(URI uri, HttpMethod method, InputStream stream) throws IOException {
         LOG.entry(uri, method, stream);
-        HttpHeaders headers = new HttpHeaders();
-        headers.set("Content-Type", MediaType.APPLICATION_OCTET_STREAM_VALUE);
-        headers.setAccept(Collections.singletonList(MediaType.APPLICATION_JSON));
-        loginHandler.applyCredentials(headers);
-        InputStreamResource resource = new InputStreamResource(stream);
-        HttpEntity<InputStreamResource> requestEntity = new HttpEntity<>(resource, headers);
-
-        RestTemplate restTemplate = new RestTemplate();
-
-        ResponseEntity<String> response = restTemplate.exchange(
-                uri, method, requestEntity,
-                String.class);
-
-        return LOG.exit(Json.createReader(new StringReader(response.getBody())).readObject());
+        
+        return LOG.exit(restTemplate.execute(
+            uri, 
+            method, 
+            request -> {
+                HttpHeaders headers = request.getHeaders();
+                headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
+                headers.setAccept(Collections.singletonList(MediaType.APPLICATION_JSON));
+                loginHandler.applyCredentials(headers);
+                try (InputStream in = stream) {
+                    copy(in, request.getBody(), uploadBufferSize);
+                }
+            },
+            jsonExtractor
+        ));
     }
     
+    /** Get a JSON object from the server.
+     * 
+     * @param uri URI from which we will request JSON data
+     * @return Parsed JSON object send by server as response.
+     * @throws IOException 
+     */
     protected JsonObject getJson(URI uri) throws IOException {
         LOG.entry(uri);
-        HttpHeaders headers = new HttpHeaders();
-        headers.setAccept(Collections.singletonList(MediaType.APPLICATION_JSON));
-        loginHandler.applyCredentials(headers);
-
-        HttpEntity requestEntity = new HttpEntity(headers);
-
-        RestTemplate restTemplate = new RestTemplate();
-
-        ResponseEntity<String> response = restTemplate.exchange(uri, HttpMethod.GET, requestEntity, String.class);
-
-        return LOG.exit(Json.createReader(new StringReader(response.getBody())).readObject());
+        return LOG.exit(restTemplate.execute(
+            uri, 
+            HttpMethod.GET, 
+            request -> {
+                request.getHeaders().setAccept(Collections.singletonList(MediaType.APPLICATION_JSON));
+                loginHandler.applyCredentials(request.getHeaders());
+            },
+            jsonExtractor
+        ));
     }
     
     /** Get Messages from the server.
@@ -198,7 +379,6 @@ public class FeedServiceImpl implements FeedService {
     protected MessageIterator getMessages(URI uri, Predicate<Message>... filters) {
         LOG.entry(uri);
 
-        RestTemplate restTemplate = new RestTemplate();
         Predicate<Message> filter = Stream.of(filters).reduce(m->true, Predicate::and); 
 
         return LOG.exit(restTemplate.execute(
@@ -217,10 +397,9 @@ public class FeedServiceImpl implements FeedService {
     protected CompletableFuture<MessageIterator> getMessagesAsync(URI uri, Predicate<Message>... filters) {
         LOG.entry(uri);
 
-        AsyncRestTemplate restTemplate = new AsyncRestTemplate();
         Predicate<Message> filter = Stream.of(filters).reduce(m->true, Predicate::and); 
 
-        ListenableFuture<MessageIterator> result = restTemplate.execute(
+        ListenableFuture<MessageIterator> result = asyncRestTemplate.execute(
                     uri, 
                     HttpMethod.GET, 
                     request -> loginHandler.applyCredentials(request.getHeaders()), 
@@ -272,7 +451,7 @@ public class FeedServiceImpl implements FeedService {
     protected static Optional<RemoteException> getDefaultError(InputStream body) {
         JsonObject message = null;
         try {
-            message = Json.createReader(body).readObject();
+            message = JSON_READERS.createReader(body).readObject();
         } catch (RuntimeException je) {
             // suppress
         }
@@ -314,13 +493,109 @@ public class FeedServiceImpl implements FeedService {
     @Override
     public CompletableFuture<MessageIterator> listen(FeedPath path, Instant from, UUID serverId, long timeoutMillis, Predicate<Message>... filters) throws FeedExceptions.InvalidPath {
         LOG.entry(path, from);
+        String encodedPath = path.toString(pathEscapeChar);
+        String encodedFilters = encode(Filters.toJson(filters));
         UriComponentsBuilder builder = UriComponentsBuilder.fromUriString(feedsUrl);
         builder.path("{path}");
         builder.queryParam("from", from);
-        builder.queryParam("wait", timeoutMillis);
-        builder.queryParam("filters", encode(Filters.toJson(filters)));
+        builder.queryParam("filters", encodedFilters);
         builder.queryParam("escapeWith", pathEscapeChar);
-        return LOG.exit(getMessagesAsync(builder.buildAndExpand(path.toString(pathEscapeChar)).toUri(), Filters.local(filters)));
+        if (adaptivePolling == null) {
+            builder.queryParam("wait", timeoutMillis);
+            return LOG.exit(getMessagesAsync(builder.buildAndExpand(encodedPath).toUri(), Filters.local(filters)));
+        }
+        AdaptivePolling.Subscription subscription = adaptivePolling.getSubscription(encodedPath + "?" + encodedFilters);
+        return LOG.exit(getMessagesAdaptive(builder, subscription, timeoutMillis, encodedPath, Filters.local(filters)));
+    }
+    
+    /** Get messages from the server using adaptive wait and linger times.
+     * 
+     * @param builder URI builder, which will be completed with wait and linger parameters
+     * @param subscription Subscription statistics
+     * @param timeoutMillis Wait time requested by caller
+     * @param path Path to expand into URI, or null
+     * @param filters Local filters to apply to messages
+     * @return promise of a future message iterator
+     */
+    private CompletableFuture<MessageIterator> getMessagesAdaptive(UriComponentsBuilder builder, AdaptivePolling.Subscription subscription, long timeoutMillis, String path, Predicate<Message>... filters) {
+        builder.queryParam("wait", subscription.getWait(timeoutMillis));
+        long linger = subscription.getLinger();
+        if (linger > 0) builder.queryParam("linger", linger);
+        subscription.request();
+        URI uri = path == null ? builder.build().toUri() : builder.buildAndExpand(path).toUri();
+        return getMessagesAsync(uri, filters).thenApply(messages -> messages.filter(subscription::received));
+    }
+
+    /** Listen for messages pushed by the server over a single connection.
+     * 
+     * Rather than issuing a long-poll request for each batch of messages, this opens one
+     * connection on which the server writes each message as it is posted. Messages are
+     * passed to the callback on a dedicated thread. If the connection is lost, the 
+     * listener reconnects from the timestamp of the last message received.
+     * 
+     * Requires a server which supports the 'stream' request parameter; the listener
+     * stops if the server responds without streaming. The connection is opened with
+     * a read timeout of streamIdleTimeoutMillis, after which the listener reconnects,
+     * so a connection which has silently died is detected.
+     * 
+     * @param path Path of feed to listen to
+     * @param from Time from which to receive messages
+     * @param callback Called for each message received
+     * @param filters Filters to apply to messages
+     * @return A started listener, which must be closed to stop receiving messages
+     */
+    public StreamingListener stream(FeedPath path, Instant from, Consumer<Message> callback, Predicate<Message>... filters) {
+        LOG.entry(path, from);
+        String encodedPath = path.toString(pathEscapeChar);
+        String encodedFilters = encode(Filters.toJson(filters));
+        SimpleClientHttpRequestFactory streamingRequestFactory = createStreamingRequestFactory(streamIdleTimeoutMillis);
+        StreamingListener listener = new StreamingListener(
+            after -> {
+                UriComponentsBuilder builder = UriComponentsBuilder.fromUriString(feedsUrl);
+                builder.path("{path}");
+                builder.queryParam("from", after);
+                builder.queryParam("stream", true);
+                builder.queryParam("filters", encodedFilters);
+                builder.queryParam("escapeWith", pathEscapeChar);
+                ClientHttpRequest request = streamingRequestFactory.createRequest(builder.buildAndExpand(encodedPath).toUri(), HttpMethod.GET);
+                loginHandler.applyCredentials(request.getHeaders());
+                return request.execute();
+            },
+            body -> factory.buildIterator(body, Optional.empty()),
+            from,
+            callback,
+            Stream.of(Filters.local(filters)).reduce(m->true, Predicate::and)
+        );
+        return LOG.exit(listener.start());
+    }
+
+    /** Listen for messages pushed by the server, resuming a subscription held in a cursor store.
+     *
+     * The listener starts from the cursor stored for the subscription, or from the
+     * fallback if there is no cursor or it is not valid for this service. Each message
+     * is checkpointed in the store after the callback returns, so a message is only
+     * delivered again after a restart if the callback did not complete, or if the
+     * checkpoint had not yet been committed by the store.
+     *
+     * @param path Path of feed to listen to
+     * @param store Store holding the position of the subscription
+     * @param subscription Name of subscription
+     * @param fallback Time from which to receive messages if there is no valid cursor
+     * @param callback Called for each message received
+     * @param filters Filters to apply to messages
+     * @return A started listener, which must be closed to stop receiving messages
+     */
+    public StreamingListener stream(FeedPath path, CursorStore store, String subscription, Instant fallback, Consumer<Message> callback, Predicate<Message>... filters) {
+        LOG.entry(path, subscription, fallback);
+        Optional<Cursor> cursor = store.get(subscription);
+        Instant from = cursor.map(c -> c.resumeFrom(this, fallback)).orElse(fallback);
+        Predicate<Message> unprocessed = cursor.map(Cursor::unprocessed).orElse(message -> true);
+        Consumer<Message> checkpointed = message -> {
+            if (!unprocessed.test(message)) return;
+            callback.accept(message);
+            store.checkpoint(subscription, message, this);
+        };
+        return LOG.exit(stream(path, from, checkpointed, filters));
     }
 
     @Override
@@ -352,9 +627,39 @@ public class FeedServiceImpl implements FeedService {
         ));
     }
     
+    /** Send a message previously appended to the outbound spool.
+     * 
+     * Client errors will never succeed on retry, so the message is logged and dropped.
+     * 
+     * @param path Path to which message was posted, escaped with pathEscapeChar
+     * @param message Serialized message
+     * @throws IOException 
+     */
+    private void sendSpooled(String path, InputStream message) throws IOException {
+        LOG.entry(path, message);
+        UriComponentsBuilder builder = UriComponentsBuilder.fromUriString(feedsUrl);
+        builder.path("{path}");
+        builder.queryParam("escapeWith", pathEscapeChar);
+        try {
+            sendStream(builder.buildAndExpand(path).toUri(), HttpMethod.POST, message);
+        } catch (HttpClientErrorException e) {
+            LOG.error("Dropping spooled message for {}: {}", path, getDefaultError(e).getMessage());
+        }
+        LOG.exit();
+    }
+    
     @Override
     public Message post(FeedPath path, Message message) throws FeedExceptions.InvalidPath {
         LOG.entry(path, message);
+        if (outboundSpool != null) {
+            try {
+                if (!outboundSpool.append(path.toString(pathEscapeChar), message.toStream()))
+                    throw FeedExceptions.runtime(new ServerError("Outbound spool full"));
+                return LOG.exit(message);
+            } catch (IOException e) {
+                throw FeedExceptions.runtime(e);
+            }
+        }
         try {
             UriComponentsBuilder builder = UriComponentsBuilder.fromUriString(feedsUrl);
             builder.path("{path}");
@@ -381,9 +686,13 @@ public class FeedServiceImpl implements FeedService {
         final String WATCH_FILTER = encode(Filters.toJson(new Predicate[] { Filters.POSTED_LOCALLY }));
         UriComponentsBuilder builder = UriComponentsBuilder.fromUriString(feedsUrl);
         builder.queryParam("from", after);
-        builder.queryParam("wait", timeoutMillis);
         builder.queryParam("filters", WATCH_FILTER);
-        return LOG.exit(getMessagesAsync(builder.build().toUri()));
+        if (adaptivePolling == null) {
+            builder.queryParam("wait", timeoutMillis);
+            return LOG.exit(getMessagesAsync(builder.build().toUri()));
+        }
+        AdaptivePolling.Subscription subscription = adaptivePolling.getSubscription("watch:" + watcherServerId);
+        return LOG.exit(getMessagesAdaptive(builder, subscription, timeoutMillis, null));
     }
 
     @Override
@@ -409,11 +718,16 @@ public class FeedServiceImpl implements FeedService {
     @Override
     public Message replicate(Message message) throws FeedExceptions.InvalidState {
         LOG.entry(message);
+        if (replicationFilter != null && replicationFilter.mightContain(getServerId(), message)) {
+            LOG.debug("Skipping duplicate replication of {}", message.getName());
+            return LOG.exit(message);
+        }
         try {
             UriComponentsBuilder builder = UriComponentsBuilder.fromUriString(feedsUrl);
             builder.path("{path}");
             builder.queryParam("escapeWith", pathEscapeChar);            
             JsonObject result = sendStream(builder.buildAndExpand(message.getName().toString(pathEscapeChar)).toUri(), HttpMethod.PUT, message.toStream());
+            if (replicationFilter != null) replicationFilter.add(getServerId(), message);
             return LOG.exit(fromJson(result));
         } catch (HttpStatusCodeException e) {
             switch (e.getStatusCode()) {
@@ -449,14 +763,59 @@ public class FeedServiceImpl implements FeedService {
         }
     }
 
+    /** Read the child feeds from the JSON representation of a feed.
+     * 
+     * @param body JSON representation of a feed
+     * @param source Resource to close when the returned stream is closed
+     * @return Stream of child feeds, parsed as they are read
+     */
+    static Stream<Feed> readChildren(InputStream body, Closeable source) {
+        JsonParser parser = JSON_PARSERS.createParser(body);
+        return JsonStreams.arrayElements(parser, CHILDREN, source).map(FeedImpl::fromJson);
+    }
+
+    /** Get the children of a feed.
+     * 
+     * The returned stream is lazy; child feeds are parsed from the response as the
+     * stream is consumed. Small responses are read into memory and the connection
+     * released straight away. Otherwise the connection is held open until the stream
+     * is either exhausted or closed, so callers which may not consume the whole stream
+     * should close it (for example, with try-with-resources).
+     * 
+     * @param path Path of parent feed
+     * @return A stream of child feeds
+     * @throws com.softwareplumbers.feed.FeedExceptions.InvalidPath 
+     */
     @Override
     public Stream<Feed> getChildren(FeedPath path) throws FeedExceptions.InvalidPath {
+        LOG.entry(path);
         UriComponentsBuilder builder = UriComponentsBuilder.fromUriString(feedsUrl);
         builder.path("{path}");  
         builder.queryParam("escapeWith", pathEscapeChar);            
         try {
-            JsonObject feed = getJson(builder.buildAndExpand(path.toString(pathEscapeChar)).toUri());
-            return LOG.exit(Feed.getChildren(feed, FeedImpl::fromJson));
+            ClientHttpRequest request = requestFactory.createRequest(builder.buildAndExpand(path.toString(pathEscapeChar)).toUri(), HttpMethod.GET);
+            request.getHeaders().setAccept(Collections.singletonList(MediaType.APPLICATION_JSON));
+            loginHandler.applyCredentials(request.getHeaders());
+            ClientHttpResponse response = request.execute();
+            if (response.getStatusCode() != HttpStatus.OK) {
+                try {
+                    if (response.getStatusCode() == HttpStatus.NOT_FOUND) throw LOG.throwing(new InvalidPath(path));
+                    throw LOG.throwing(getDefaultError(response.getBody()).orElseGet(()->new RemoteException(rawError(response))));
+                } finally {
+                    response.close();
+                }
+            }
+            long length = response.getHeaders().getContentLength();
+            if (length >= 0 && length <= MAX_BUFFERED_RESPONSE) {
+                ByteArrayOutputStream buffer = new ByteArrayOutputStream((int)length);
+                try (InputStream body = response.getBody()) {
+                    copy(body, buffer, (int)Math.max(length, 1));
+                } finally {
+                    response.close();
+                }
+                return LOG.exit(readChildren(new ByteArrayInputStream(buffer.toByteArray()), ()->{}));
+            }
+            return LOG.exit(readChildren(response.getBody(), response::close));
         } catch(IOException ioe) {
             throw FeedExceptions.runtime(ioe);
         }
@@ -466,6 +825,7 @@ public class FeedServiceImpl implements FeedService {
     public Stream<Feed> getFeeds() {
         try {
             Feed root = getFeed(FeedPath.ROOT);
+            if (feedCrawler != null) return feedCrawler.crawl(this, root);
             return Stream.of(root).flatMap(feed->feed.getChildren(this));
         } catch (InvalidPath e) {
             throw FeedExceptions.runtime(e);
@@ -480,10 +840,11 @@ public class FeedServiceImpl implements FeedService {
     @Override
     public void dumpState(PrintWriter out) {
         out.println(getServiceInfo());
+        if (adaptivePolling != null) adaptivePolling.dumpState(out);
     }
 
     @Override
     public void close() throws Exception {
-        //hmm
+        if (outboundSpool != null) outboundSpool.close();
     }
 }
@@ -0,0 +1,153 @@
+package com.softwareplumbers.feed.rest.client.spring;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.json.Json;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import javax.json.JsonReader;
+import javax.json.JsonValue;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+
+/** Cursor store backed by a JSON file.
+ *
+ * Checkpoints are held in memory and written to disk in groups: either when the
+ * commit interval expires or when the number of uncommitted checkpoints reaches
+ * the batch size, whichever comes first. Each commit writes all cursors to a
+ * temporary file, syncs it to disk, atomically replaces the previous file and then
+ * syncs the directory so the rename itself is durable. The store on disk is
+ * therefore always complete and consistent.
+ *
+ * @author Jonathan Essex
+ */
+public class FileCursorStore implements CursorStore {
+
+    private static final XLogger LOG = XLoggerFactory.getXLogger(FileCursorStore.class);
+
+    private final Path file;
+    private final Map<String, Cursor> cursors = new ConcurrentHashMap<>();
+    private final AtomicInteger uncommitted = new AtomicInteger();
+    private final AtomicBoolean commitScheduled = new AtomicBoolean();
+    private final ScheduledExecutorService committer;
+    private int batchSize = 1000;
+
+    /** Open or create a cursor store.
+     *
+     * @param file File in which cursors are stored
+     * @param commitIntervalMillis Maximum time for which a checkpoint may remain uncommitted
+     * @throws IOException if an existing store cannot be read
+     */
+    public FileCursorStore(Path file, long commitIntervalMillis) throws IOException {
+        LOG.entry(file, commitIntervalMillis);
+        this.file = file;
+        if (Files.exists(file)) {
+            try (InputStream in = Files.newInputStream(file); JsonReader reader = Json.createReader(in)) {
+                for (Map.Entry<String, JsonValue> entry : reader.readObject().entrySet()) {
+                    cursors.put(entry.getKey(), Cursor.fromJson((JsonObject)entry.getValue()));
+                }
+            }
+        }
+        this.committer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cursor-store-commit");
+            thread.setDaemon(true);
+            return thread;
+        });
+        committer.scheduleWithFixedDelay(this::commit, commitIntervalMillis, commitIntervalMillis, TimeUnit.MILLISECONDS);
+        LOG.exit();
+    }
+
+    /** Set the number of checkpoints after which a commit is started early.
+     *
+     * If an early commit fails, another is started at the next checkpoint.
+     *
+     * @param batchSize Maximum number of uncommitted checkpoints
+     */
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public Optional<Cursor> get(String subscription) {
+        return Optional.ofNullable(cursors.get(subscription));
+    }
+
+    @Override
+    public void checkpoint(String subscription, Cursor cursor) {
+        cursors.put(subscription, cursor);
+        if (uncommitted.incrementAndGet() >= batchSize && commitScheduled.compareAndSet(false, true)) {
+            committer.execute(this::commit);
+        }
+    }
+
+    /** Sync a directory, so that a rename within it survives power failure.
+     *
+     * Not all platforms allow a directory to be opened; on those, the rename is
+     * assumed to be durable once it completes.
+     */
+    private static void syncDirectory(Path directory) throws IOException {
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(directory, StandardOpenOption.READ);
+        } catch (IOException e) {
+            LOG.debug("Cannot open directory {} to sync: {}", directory, e.getMessage());
+            return;
+        }
+        try (FileChannel dir = channel) {
+            dir.force(true);
+        }
+    }
+
+    private void commit() {
+        commitScheduled.set(false);
+        try {
+            flush();
+        } catch (IOException e) {
+            LOG.error("Failed to commit cursors to {}: {}", file, e.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized void flush() throws IOException {
+        int pending = uncommitted.getAndSet(0);
+        if (pending == 0) return;
+        LOG.entry();
+        JsonObjectBuilder builder = Json.createObjectBuilder();
+        cursors.forEach((subscription, cursor) -> builder.add(subscription, cursor.toJson()));
+        ByteBuffer data = ByteBuffer.wrap(builder.build().toString().getBytes(StandardCharsets.UTF_8));
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (data.hasRemaining()) channel.write(data);
+                channel.force(true);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            syncDirectory(file.toAbsolutePath().getParent());
+        } catch (IOException e) {
+            uncommitted.addAndGet(pending);
+            throw LOG.throwing(e);
+        }
+        LOG.exit();
+    }
+
+    @Override
+    public void close() throws IOException {
+        committer.shutdown();
+        flush();
+    }
+}
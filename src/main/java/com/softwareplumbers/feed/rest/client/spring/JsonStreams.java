@@ -0,0 +1,111 @@
+package com.softwareplumbers.feed.rest.client.spring;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import javax.json.JsonObject;
+import javax.json.stream.JsonParser;
+import javax.json.stream.JsonParser.Event;
+import javax.json.stream.JsonParsingException;
+
+/** Utilities for incrementally parsing large JSON responses.
+ *
+ * @author Jonathan Essex
+ */
+public class JsonStreams {
+
+    private static class ArraySpliterator extends Spliterators.AbstractSpliterator<JsonObject> {
+
+        private final JsonParser parser;
+        private final Closeable source;
+        private boolean done = false;
+
+        public ArraySpliterator(JsonParser parser, Closeable source) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.parser = parser;
+            this.source = source;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super JsonObject> action) {
+            while (!done && parser.hasNext()) {
+                Event event = parser.next();
+                switch (event) {
+                    case START_OBJECT:
+                        action.accept(parser.getObject());
+                        return true;
+                    case START_ARRAY:
+                        parser.skipArray();
+                        break;
+                    case END_ARRAY:
+                        close();
+                        break;
+                    default:
+                        // ignore elements which are not objects
+                }
+            }
+            return false;
+        }
+
+        public void close() {
+            if (done) return;
+            done = true;
+            try {
+                parser.close();
+                source.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /** Lazily stream the objects in an array-valued property of a JSON object.
+     *
+     * The parser must be positioned before the start of the enclosing object. Properties
+     * preceding the named property are skipped; the elements of the named array are
+     * then parsed one at a time as the stream is consumed. Non-object elements of the
+     * array are ignored. If the property is not present, the stream is empty.
+     *
+     * The source is closed when the end of the array is reached, or when the stream is
+     * closed, whichever happens first.
+     *
+     * @param parser Parser positioned before a JSON object
+     * @param property Name of the array-valued property to stream
+     * @param source Underlying resource to close when the stream is finished with
+     * @return A stream of the objects in the named array
+     */
+    public static Stream<JsonObject> arrayElements(JsonParser parser, String property, Closeable source) {
+        ArraySpliterator spliterator = new ArraySpliterator(parser, source);
+        try {
+            if (!parser.hasNext() || parser.next() != Event.START_OBJECT)
+                throw new JsonParsingException("expected a JSON object", parser.getLocation());
+            while (parser.hasNext()) {
+                Event event = parser.next();
+                if (event == Event.END_OBJECT) break;
+                if (event != Event.KEY_NAME) continue;
+                boolean match = property.equals(parser.getString());
+                switch (parser.next()) {
+                    case START_ARRAY:
+                        if (match) return StreamSupport.stream(spliterator, false).onClose(spliterator::close);
+                        parser.skipArray();
+                        break;
+                    case START_OBJECT:
+                        parser.skipObject();
+                        break;
+                    default:
+                        // scalar value, nothing to skip
+                }
+            }
+            spliterator.close();
+            return Stream.empty();
+        } catch (RuntimeException e) {
+            spliterator.close();
+            throw e;
+        }
+    }
+}
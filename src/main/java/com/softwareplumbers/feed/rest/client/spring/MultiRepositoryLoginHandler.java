@@ -0,0 +1,193 @@
+package com.softwareplumbers.feed.rest.client.spring;
+
+import com.softwareplumbers.keymanager.KeyManager;
+import java.net.HttpCookie;
+import java.net.URI;
+import java.security.cert.X509Certificate;
+import java.util.Base64;
+import java.util.Base64.Encoder;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+import org.springframework.beans.factory.annotation.Required;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriTemplate;
+
+/** Handle login to many Doctane repositories with a single service account.
+ *
+ * Uses the same signed-request protocol as SignedRequestLoginHandler, but keeps a
+ * concurrent cache of credentials for each repository. The signed authentication
+ * request does not depend on the repository, so it is signed once and reused for
+ * every login within the refresh window.
+ *
+ * The authentication URI is a template with 'repository', 'request' and 'signature'
+ * parameters, for example:
+ * ```
+ * http://localhost:8080/auth/{repository}/service?request={request}&signature={signature}
+ * ```
+ *
+ * @author Jonathan Essex
+ */
+public class MultiRepositoryLoginHandler {
+
+    //------ private static variables -------//
+
+    private static final XLogger LOG = XLoggerFactory.getXLogger(MultiRepositoryLoginHandler.class);
+
+    //------ private classes -------//
+
+    private static class SignedRequest {
+        public final String request;
+        public final String signature;
+        public final long created;
+        public SignedRequest(String request, String signature) {
+            this.request = request;
+            this.signature = signature;
+            this.created = System.currentTimeMillis();
+        }
+    }
+
+    //------ private variables -------//
+
+    private final Map<String, HttpCookie> cookies = new ConcurrentHashMap<>();
+    private final Map<String, Object> loginLocks = new ConcurrentHashMap<>();
+    private KeyManager<SecretKeys,KeyPairs> keyManager;
+    private UriTemplate authURI;
+    private RestTemplate restTemplate = new RestTemplate();
+    private long refreshWindowMillis = 60000;
+    private SignedRequest signedRequest;
+
+    //------ private methods ------///
+
+    private synchronized SignedRequest getSignedRequest() {
+        if (signedRequest == null || System.currentTimeMillis() - signedRequest.created > refreshWindowMillis) {
+            LOG.entry();
+            X509Certificate cert = keyManager.getCertificate(KeyPairs.DEFAULT_SERVICE_ACCOUNT);
+            byte[] authRequestBytes = SignedRequestLoginHandler.formatAuthRequest(SignedRequestLoginHandler.extractName(cert));
+            byte[] signature = SignedRequestLoginHandler.signAuthRequest(keyManager, authRequestBytes, KeyPairs.DEFAULT_SERVICE_ACCOUNT);
+            Encoder base64 = Base64.getUrlEncoder();
+            signedRequest = new SignedRequest(base64.encodeToString(authRequestBytes), base64.encodeToString(signature));
+            LOG.exit("<redacted>");
+        }
+        return signedRequest;
+    }
+
+    /** Log in to a repository.
+     *
+     * @param repository Repository to log in to
+     * @return Credentials cookie, or null if the server did not supply one
+     */
+    protected HttpCookie getCookieFromServer(String repository) {
+        LOG.entry(repository);
+        SignedRequest request = getSignedRequest();
+        Map<String, String> params = new HashMap<>();
+        params.put("repository", repository);
+        params.put("request", request.request);
+        params.put("signature", request.signature);
+        URI authRequest = authURI.expand(params);
+        ResponseEntity<String> response = restTemplate.exchange(authRequest, HttpMethod.GET, null, String.class);
+        return LOG.exit(SignedRequestLoginHandler.getCookieFromResponse(SignedRequestLoginHandler.BASE_COOKIE_NAME + "/" + repository, response).orElse(null));
+    }
+
+    private HttpCookie getCookie(String repository) {
+        HttpCookie cookie = cookies.get(repository);
+        if (cookie != null && !cookie.hasExpired()) return cookie;
+        // Only one login at a time for each repository; logins to other repositories
+        // are not held up while this one waits for the server.
+        synchronized(loginLocks.computeIfAbsent(repository, key -> new Object())) {
+            cookie = cookies.get(repository);
+            if (cookie != null && !cookie.hasExpired()) return cookie;
+            cookie = getCookieFromServer(repository);
+            if (cookie != null) cookies.put(repository, cookie); else cookies.remove(repository);
+            return cookie;
+        }
+    }
+
+    //------- public methods ------//
+
+    /** Create a new login handler.
+     *
+     * @param keyManager A key manager that contains a key for DEFAULT_SERVICE_ACCOUNT
+     * @param authURI Template for the URI of the authorization service
+     */
+    public MultiRepositoryLoginHandler(KeyManager<SecretKeys,KeyPairs> keyManager, String authURI) {
+        LOG.entry(keyManager, authURI);
+        this.keyManager = keyManager;
+        this.authURI = new UriTemplate(authURI);
+        LOG.exit();
+    }
+
+    /** Null-arg constructor for Spring */
+    public MultiRepositoryLoginHandler() {
+        this.keyManager = null;
+        this.authURI = null;
+    }
+
+    /** Set the key manager.
+     *
+     * Mainly for Spring configuration. Java code should use the two-argument constructor.
+     *
+     * @param keyManager Key manager for this Doctane client.
+     */
+    @Required
+    public void setKeyManager(KeyManager<SecretKeys, KeyPairs> keyManager) {
+        this.keyManager = keyManager;
+    }
+
+    /** Set the authentication URI template.
+     *
+     * Mainly for Spring configuration. Java code should use the two-argument constructor.
+     *
+     * @param authURI Template for the URI of the authorization service
+     */
+    @Required
+    public void setAuthURI(String authURI) {
+        this.authURI = new UriTemplate(authURI);
+    }
+
+    /** Set the request factory used to contact the authorization service.
+     *
+     * @param requestFactory Request factory (typically shared with the feed services)
+     */
+    public void setRequestFactory(ClientHttpRequestFactory requestFactory) {
+        this.restTemplate = new RestTemplate(requestFactory);
+    }
+
+    /** Set the period for which a signed authentication request is reused.
+     *
+     * This should be shorter than the period for which the server will accept a request.
+     *
+     * @param refreshWindowMillis Refresh window in milliseconds
+     */
+    public void setRefreshWindowMillis(long refreshWindowMillis) {
+        this.refreshWindowMillis = refreshWindowMillis;
+    }
+
+    /** Get a login handler for a single repository.
+     *
+     * The returned handler is a lightweight view on the shared credential cache.
+     *
+     * @param repository The Doctane repository for which we are authenticating
+     * @return A login handler for the given repository
+     */
+    public LoginHandler forRepository(String repository) {
+        return new LoginHandler() {
+            @Override
+            public void applyCredentials(HttpHeaders mainRequest) {
+                HttpCookie cookie = getCookie(repository);
+                if (cookie != null) mainRequest.add("Cookie", cookie.toString());
+            }
+
+            @Override
+            public String getCredentials() {
+                return getCookie(repository).toString();
+            }
+        };
+    }
+}
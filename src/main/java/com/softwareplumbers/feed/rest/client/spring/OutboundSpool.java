@@ -0,0 +1,694 @@
+package com.softwareplumbers.feed.rest.client.spring;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+
+/** Persistent write-behind spool for outgoing messages.
+ *
+ * Messages are appended to a fixed-size, memory-mapped journal file and the caller
+ * returns immediately. A background drainer reads the journal and hands each message
+ * to a Sender. Messages for different feeds are sent concurrently (up to the configured
+ * pipeline depth) while messages for the same feed are always sent in the order in
+ * which they were spooled. A feed whose messages cannot be delivered is retried after
+ * a delay without holding up other feeds; a message which still fails after the
+ * maximum number of attempts is passed to the dead letter sender, if any, and dropped.
+ *
+ * Progress is checkpointed in the journal header, so any messages not yet delivered
+ * when the process stops will be sent once the spool is reopened. Delivery is therefore
+ * at-least-once: a message sent just before a crash may be sent again on restart.
+ *
+ * By default, spooled messages survive a crash of the process but not of the
+ * operating system or a power failure, since the mapped journal is written back to
+ * disk by the operating system in its own time. With sync on append enabled, append
+ * does not return until the message is on disk; concurrent appends share a sync.
+ *
+ * The journal is a ring buffer which never grows beyond its initial capacity, and
+ * records are never moved once written. Read and write positions are kept in two
+ * alternating header slots, each protected by a checksum, so a header torn by a crash
+ * falls back to the previous slot. Each record also carries a checksum, which covers its
+ * position in the journal as well as its content, so a stale record left over from an
+ * earlier pass around the ring never verifies. On reopening, the journal is truncated
+ * at the first record which fails to verify. If there is not enough room for a
+ * message, append returns false, which callers should treat as a signal to slow down.
+ *
+ * Messages are streamed into and out of the mapped journal in fixed-size chunks, so
+ * large messages are never held in heap.
+ *
+ * @author Jonathan Essex
+ */
+public class OutboundSpool implements AutoCloseable {
+
+    private static final XLogger LOG = XLoggerFactory.getXLogger(OutboundSpool.class);
+
+    private static final int MAGIC = 0x53504c32; // "SPL2"
+    private static final int SLOT_SIZE = 32;
+    private static final int[] SLOTS = { 8, 8 + SLOT_SIZE };
+    private static final int HEADER_SIZE = 8 + 2 * SLOT_SIZE;
+    private static final int RECORD_HEADER_SIZE = 12;
+    private static final int CHUNK_SIZE = 8192;
+
+    /** Callback used by the drainer to deliver a spooled message.
+     *
+     * A sender should throw only if delivery should be retried later. Messages which
+     * can never be delivered (for example, because the feed path is invalid) should be
+     * logged and discarded by the sender.
+     */
+    @FunctionalInterface
+    public interface Sender {
+        /** Send a message.
+         *
+         * @param path Path to which the message was posted (as escaped by the client)
+         * @param message Stream containing the serialized message
+         * @throws Exception if the message could not be delivered and should be retried
+         */
+        void send(String path, InputStream message) throws Exception;
+    }
+
+    private static class Record {
+        public final String path;
+        public final long position;
+        public final int length;
+        public final int skip;
+        public int attempts = 0;
+        public volatile boolean sent = false;
+        public Record(String path, long position, int length, int pathLength) {
+            this.path = path;
+            this.position = position;
+            this.length = length;
+            this.skip = RECORD_HEADER_SIZE + pathLength;
+        }
+    }
+
+    /** Records read from the journal but not yet delivered, for a single feed. */
+    private static class FeedQueue {
+        public final String path;
+        public final Deque<Record> records = new ArrayDeque<>();
+        public boolean inFlight = false;
+        public long retryAt = 0;
+        public volatile Record failed;
+        public FeedQueue(String path) {
+            this.path = path;
+        }
+    }
+
+    /** Reads directly from a region of the mapped journal. */
+    private static class BufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        public BufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (!buffer.hasRemaining()) return -1;
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+
+    private final FileChannel channel;
+    private final MappedByteBuffer journal;
+    private final int capacity;
+    private final int dataCapacity;
+    private final Object appendLock = new Object();
+    private final Object syncLock = new Object();
+    private long sequence;
+    private long readPosition;
+    private long writePosition;
+    private long syncedPosition;
+
+    private int pipelineDepth = 4;
+    private int batchSize = 256;
+    private long batchBytes = 16 * 1024 * 1024;
+    private long retryDelayMillis = 5000;
+    private int maxAttempts = 720;
+    private boolean syncOnAppend = false;
+
+    // Drainer state; only touched by the drainer thread, except where synchronized
+    private final Deque<Record> window = new ArrayDeque<>();
+    private final Map<String, FeedQueue> feeds = new LinkedHashMap<>();
+    private final Queue<FeedQueue> completed = new ConcurrentLinkedQueue<>();
+    private long scanPosition;
+
+    private Sender sender;
+    private Sender deadLetters;
+    private ExecutorService pipeline;
+    private Thread drainer;
+    private volatile boolean running = false;
+    private volatile Exception failure;
+
+    private static long checksum(long sequence, long readPosition, long writePosition) {
+        CRC32 crc = new CRC32();
+        ByteBuffer values = ByteBuffer.allocate(24);
+        values.putLong(sequence).putLong(readPosition).putLong(writePosition);
+        crc.update(values.array());
+        return crc.getValue();
+    }
+
+    private static void update(CRC32 crc, long value) {
+        crc.update(ByteBuffer.allocate(8).putLong(value).array());
+    }
+
+    //------ journal access ------//
+
+    /** Physical offset in the journal of a logical position. */
+    private int offset(long position) {
+        return HEADER_SIZE + (int)(position % dataCapacity);
+    }
+
+    /** Get a view of part of the data region, which may wrap around the end of the journal. */
+    private ByteBuffer[] region(long position, int length) {
+        int start = offset(position);
+        int first = Math.min(length, capacity - start);
+        ByteBuffer head = journal.duplicate();
+        head.position(start).limit(start + first);
+        if (first == length) return new ByteBuffer[] { head.slice() };
+        ByteBuffer tail = journal.duplicate();
+        tail.position(HEADER_SIZE).limit(HEADER_SIZE + length - first);
+        return new ByteBuffer[] { head.slice(), tail.slice() };
+    }
+
+    private void put(long position, byte[] bytes, int length) {
+        int done = 0;
+        for (ByteBuffer part : region(position, length)) {
+            int count = part.remaining();
+            part.put(bytes, done, count);
+            done += count;
+        }
+    }
+
+    private void get(long position, byte[] bytes) {
+        int done = 0;
+        for (ByteBuffer part : region(position, bytes.length)) {
+            int count = part.remaining();
+            part.get(bytes, done, count);
+            done += count;
+        }
+    }
+
+    private InputStream stream(long position, int length) {
+        ByteBuffer[] parts = region(position, length);
+        if (parts.length == 1) return new BufferInputStream(parts[0]);
+        return new SequenceInputStream(new BufferInputStream(parts[0]), new BufferInputStream(parts[1]));
+    }
+
+    private ByteBuffer getRecordHeader(long position) {
+        byte[] header = new byte[RECORD_HEADER_SIZE];
+        get(position, header);
+        return ByteBuffer.wrap(header);
+    }
+
+    /** Write positions to the older header slot, so the newer slot survives a torn write. */
+    private void writeHeader() {
+        sequence++;
+        int slot = SLOTS[(int)(sequence % 2)];
+        journal.putLong(slot + 8, readPosition);
+        journal.putLong(slot + 16, writePosition);
+        journal.putLong(slot + 24, checksum(sequence, readPosition, writePosition));
+        journal.putLong(slot, sequence);
+    }
+
+    /** Read positions from the newest valid header slot. */
+    private void readHeader(Path file) throws IOException {
+        boolean found = false;
+        for (int slot : SLOTS) {
+            long slotSequence = journal.getLong(slot);
+            long slotRead = journal.getLong(slot + 8);
+            long slotWrite = journal.getLong(slot + 16);
+            if (journal.getLong(slot + 24) != checksum(slotSequence, slotRead, slotWrite)) continue;
+            if (found && slotSequence < sequence) continue;
+            found = true;
+            sequence = slotSequence;
+            readPosition = slotRead;
+            writePosition = slotWrite;
+        }
+        if (!found || readPosition > writePosition || writePosition - readPosition > dataCapacity)
+            throw LOG.throwing(new IOException("spool journal header is corrupt: " + file));
+    }
+
+    /** Check a record header, returning the total record length. */
+    private int checkRecord(long position, long limit) throws IOException {
+        if (limit - position < RECORD_HEADER_SIZE) throw new IOException("truncated spool record at " + position);
+        ByteBuffer header = getRecordHeader(position);
+        int length = header.getInt();
+        int pathLength = header.getInt();
+        if (length < RECORD_HEADER_SIZE + pathLength || pathLength < 0 || length > limit - position)
+            throw new IOException("corrupt spool record at " + position);
+        return length;
+    }
+
+    /** Drop any records at the tail of the journal which were not completely written. */
+    private void recover(Path file) {
+        long position = readPosition;
+        byte[] chunk = new byte[CHUNK_SIZE];
+        try {
+            while (position < writePosition) {
+                int length = checkRecord(position, writePosition);
+                long expected = getRecordHeader(position).getInt(8) & 0xFFFFFFFFL;
+                CRC32 crc = new CRC32();
+                update(crc, position);
+                InputStream data = stream(position + RECORD_HEADER_SIZE, length - RECORD_HEADER_SIZE);
+                int read;
+                while ((read = data.read(chunk, 0, chunk.length)) >= 0) crc.update(chunk, 0, read);
+                update(crc, length);
+                if (crc.getValue() != expected) throw new IOException("checksum mismatch in spool record at " + position);
+                position += length;
+            }
+        } catch (IOException e) {
+            LOG.warn("Discarding {} bytes from {}: {}", writePosition - position, file, e.getMessage());
+            writePosition = position;
+            writeHeader();
+            journal.force();
+        }
+    }
+
+    //------ public methods ------//
+
+    /** Open or create a spool.
+     *
+     * If the journal file already exists, any messages which had not been delivered
+     * when it was last closed will be sent once the spool is started. The capacity of
+     * an existing journal is not changed.
+     *
+     * @param file Location of the journal file
+     * @param capacity Maximum size of the journal file in bytes
+     * @throws IOException if the journal file cannot be opened
+     */
+    public OutboundSpool(Path file, int capacity) throws IOException {
+        LOG.entry(file, capacity);
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        boolean existing = channel.size() >= HEADER_SIZE;
+        this.capacity = existing ? (int)Math.min(channel.size(), Integer.MAX_VALUE) : capacity;
+        if (this.capacity <= HEADER_SIZE + RECORD_HEADER_SIZE)
+            throw LOG.throwing(new IllegalArgumentException("spool capacity too small: " + capacity));
+        this.dataCapacity = this.capacity - HEADER_SIZE;
+        this.journal = channel.map(FileChannel.MapMode.READ_WRITE, 0, this.capacity);
+        if (existing) {
+            if (journal.getInt(0) != MAGIC)
+                throw LOG.throwing(new IOException("not a spool journal: " + file));
+            readHeader(file);
+            recover(file);
+            LOG.debug("recovered {} bytes of undelivered messages from {}", writePosition - readPosition, file);
+        } else {
+            journal.putInt(0, MAGIC);
+            readPosition = writePosition = 0;
+            writeHeader();
+            writeHeader();
+            journal.force();
+        }
+        LOG.exit();
+    }
+
+    /** Set the maximum number of feeds to which messages are sent concurrently.
+     *
+     * @param pipelineDepth Number of concurrent sends
+     */
+    public void setPipelineDepth(int pipelineDepth) {
+        this.pipelineDepth = pipelineDepth;
+    }
+
+    /** Set the maximum number of undelivered messages read ahead from the journal.
+     *
+     * @param batchSize Maximum number of messages read ahead
+     */
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    /** Set the maximum number of journal bytes read ahead of the oldest undelivered message.
+     *
+     * At least one message is always read, however large. Message content is not
+     * read into memory until it is sent.
+     *
+     * @param batchBytes Maximum bytes read ahead
+     */
+    public void setBatchBytes(long batchBytes) {
+        this.batchBytes = batchBytes;
+    }
+
+    /** Set the delay before retrying when a message cannot be delivered.
+     *
+     * @param retryDelayMillis Delay in milliseconds
+     */
+    public void setRetryDelayMillis(long retryDelayMillis) {
+        this.retryDelayMillis = retryDelayMillis;
+    }
+
+    /** Set the number of attempts after which an undeliverable message is given up.
+     *
+     * Until a message is delivered or given up, it holds its place in the journal,
+     * and later messages for the same feed are not sent. The default of 720 attempts
+     * is one hour at the default retry delay. Zero retries indefinitely.
+     *
+     * @param maxAttempts Maximum delivery attempts per message, or zero for no limit
+     */
+    public void setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+    }
+
+    /** Set a sender for messages which have been given up.
+     *
+     * If not set, such messages are logged and dropped.
+     *
+     * @param deadLetters Sender for undeliverable messages
+     */
+    public void setDeadLetters(Sender deadLetters) {
+        this.deadLetters = deadLetters;
+    }
+
+    /** Set whether append syncs each message to disk before returning.
+     *
+     * @param syncOnAppend true to make spooled messages survive an operating system crash or power failure
+     */
+    public void setSyncOnAppend(boolean syncOnAppend) {
+        this.syncOnAppend = syncOnAppend;
+    }
+
+    /** Start delivering spooled messages.
+     *
+     * @param sender Callback which will deliver messages
+     */
+    public synchronized void start(Sender sender) {
+        LOG.entry(sender);
+        if (running) throw LOG.throwing(new IllegalStateException("spool already started"));
+        this.sender = sender;
+        this.running = true;
+        this.scanPosition = readPosition;
+        this.pipeline = Executors.newFixedThreadPool(pipelineDepth, runnable -> {
+            Thread thread = new Thread(runnable, "spool-sender");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.drainer = new Thread(this::drain, "spool-drainer");
+        this.drainer.setDaemon(true);
+        this.drainer.start();
+        LOG.exit();
+    }
+
+    /** Append a message to the spool.
+     *
+     * The message is streamed into the journal. It is only made visible to the drainer
+     * once it has been completely written, so a crash during append never causes a
+     * partial message to be sent. If sync on append is enabled, the message is on disk
+     * when append returns.
+     *
+     * @param path Path to which the message is posted (as escaped by the client)
+     * @param message Stream containing the serialized message
+     * @return false if there is not enough room in the spool for the message
+     * @throws IOException if the message cannot be read, or the spool has failed
+     */
+    public boolean append(String path, InputStream message) throws IOException {
+        LOG.entry(path, message);
+        if (failure != null) throw LOG.throwing(new IOException("outbound spool has failed", failure));
+        byte[] pathBytes = path.getBytes(StandardCharsets.UTF_8);
+        long end;
+        synchronized(appendLock) {
+            // Only appenders move the write position, and the read position only advances,
+            // so space between the two remains free while we write.
+            long start;
+            long limit;
+            synchronized(this) {
+                start = writePosition;
+                limit = readPosition + dataCapacity;
+            }
+            long position = start + RECORD_HEADER_SIZE + pathBytes.length;
+            if (position > limit) return LOG.exit(false);
+            put(start + RECORD_HEADER_SIZE, pathBytes, pathBytes.length);
+            CRC32 crc = new CRC32();
+            update(crc, start);
+            crc.update(pathBytes);
+            byte[] chunk = new byte[CHUNK_SIZE];
+            int read;
+            while ((read = message.read(chunk)) >= 0) {
+                if (position + read > limit) {
+                    synchronized(this) { limit = readPosition + dataCapacity; }
+                    if (position + read > limit || position + read - start > Integer.MAX_VALUE) {
+                        LOG.debug("spool full, rejecting message for {}", path);
+                        return LOG.exit(false);
+                    }
+                }
+                put(position, chunk, read);
+                crc.update(chunk, 0, read);
+                position += read;
+            }
+            update(crc, position - start);
+            ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+            header.putInt((int)(position - start)).putInt(pathBytes.length).putInt((int)crc.getValue());
+            put(start, header.array(), RECORD_HEADER_SIZE);
+            synchronized(this) {
+                writePosition = position;
+                writeHeader();
+                notifyAll();
+            }
+            end = position;
+        }
+        if (syncOnAppend) sync(end);
+        return LOG.exit(true);
+    }
+
+    /** Force the journal to disk, unless a sync by another appender already covers the given position. */
+    private void sync(long position) {
+        synchronized(syncLock) {
+            if (syncedPosition >= position) return;
+            long target;
+            synchronized(this) { target = writePosition; }
+            journal.force();
+            syncedPosition = target;
+        }
+    }
+
+    /** Get the number of bytes used by undelivered messages.
+     *
+     * @return Bytes of journal in use
+     */
+    public synchronized long getUsedBytes() {
+        return writePosition - readPosition;
+    }
+
+    /** Get the capacity of the journal.
+     *
+     * @return Capacity of the journal in bytes
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /** Check whether there are undelivered messages in the spool.
+     *
+     * @return true if the spool is empty
+     */
+    public synchronized boolean isEmpty() {
+        return writePosition == readPosition;
+    }
+
+    /** Check whether the drainer has stopped because of an unexpected error.
+     *
+     * Once failed, the spool rejects further messages; undelivered messages remain in the
+     * journal and will be retried when it is next opened.
+     *
+     * @return The error which stopped the drainer, if any
+     */
+    public Exception getFailure() {
+        return failure;
+    }
+
+    /** Read records beyond those already read, up to the read-ahead limits. */
+    private synchronized void readAhead() throws IOException {
+        while (scanPosition < writePosition && window.size() < batchSize && (window.isEmpty() || scanPosition - readPosition < batchBytes)) {
+            int length = checkRecord(scanPosition, writePosition);
+            byte[] path = new byte[getRecordHeader(scanPosition).getInt(4)];
+            get(scanPosition + RECORD_HEADER_SIZE, path);
+            Record record = new Record(new String(path, StandardCharsets.UTF_8), scanPosition, length, path.length);
+            window.add(record);
+            feeds.computeIfAbsent(record.path, FeedQueue::new).records.add(record);
+            scanPosition += length;
+        }
+    }
+
+    private synchronized boolean canReadAhead() {
+        return scanPosition < writePosition && window.size() < batchSize && (window.isEmpty() || scanPosition - readPosition < batchBytes);
+    }
+
+    private InputStream content(Record record) {
+        return stream(record.position + record.skip, record.length - record.skip);
+    }
+
+    /** Send messages for one feed, in order, stopping at the first failure.
+     *
+     * @return The message which could not be sent, or null if all were sent
+     */
+    private Record sendFeed(List<Record> records) {
+        for (Record record : records) {
+            try {
+                sender.send(record.path, content(record));
+                record.sent = true;
+            } catch (Exception e) {
+                LOG.warn("Failed to send spooled message to {}: {}", record.path, e.getMessage());
+                return record;
+            }
+        }
+        return null;
+    }
+
+    private void deadLetter(Record record) {
+        LOG.error("Giving up on spooled message for {} after {} attempts", record.path, record.attempts);
+        if (deadLetters != null) {
+            try {
+                deadLetters.send(record.path, content(record));
+            } catch (Exception e) {
+                LOG.error("Failed to pass undeliverable message for {} to dead letters: {}", record.path, e.getMessage());
+            }
+        }
+        record.sent = true;
+    }
+
+    /** Process feeds whose sends have completed. */
+    private void collect() {
+        FeedQueue feed;
+        while ((feed = completed.poll()) != null) {
+            feed.inFlight = false;
+            while (!feed.records.isEmpty() && feed.records.peek().sent) feed.records.poll();
+            Record failed = feed.failed;
+            feed.failed = null;
+            if (failed != null) {
+                failed.attempts++;
+                if (maxAttempts > 0 && failed.attempts >= maxAttempts) {
+                    deadLetter(failed);
+                    feed.records.poll();
+                } else {
+                    feed.retryAt = System.currentTimeMillis() + retryDelayMillis;
+                }
+            }
+            if (feed.records.isEmpty()) feeds.remove(feed.path);
+        }
+    }
+
+    /** Start sending for each feed which is neither in flight nor waiting to retry.
+     *
+     * @return Time at which the next feed waiting to retry becomes ready
+     */
+    private long dispatch() {
+        long now = System.currentTimeMillis();
+        long nextRetry = Long.MAX_VALUE;
+        for (FeedQueue feed : feeds.values()) {
+            if (feed.inFlight || feed.records.isEmpty()) continue;
+            if (feed.retryAt > now) {
+                nextRetry = Math.min(nextRetry, feed.retryAt);
+                continue;
+            }
+            feed.inFlight = true;
+            List<Record> records = new ArrayList<>(feed.records);
+            pipeline.execute(() -> {
+                try {
+                    feed.failed = sendFeed(records);
+                } finally {
+                    completed.add(feed);
+                    synchronized(this) { notifyAll(); }
+                }
+            });
+        }
+        return nextRetry;
+    }
+
+    /** Advance the read position past messages which have been delivered. */
+    private synchronized void checkpoint() {
+        long start = readPosition;
+        while (!window.isEmpty() && window.peek().sent) readPosition += window.poll().length;
+        if (readPosition != start) writeHeader();
+    }
+
+    private void drain() {
+        LOG.entry();
+        try {
+            while (running) {
+                collect();
+                checkpoint();
+                readAhead();
+                long nextRetry = dispatch();
+                synchronized(this) {
+                    if (running && completed.isEmpty() && !canReadAhead()) {
+                        long now = System.currentTimeMillis();
+                        wait(nextRetry == Long.MAX_VALUE ? 0 : Math.max(1, nextRetry - now));
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            LOG.debug("spool drainer interrupted");
+        } catch (IOException | RuntimeException e) {
+            LOG.error("Outbound spool failed, no further messages will be sent", e);
+            failure = e;
+            running = false;
+        }
+        LOG.exit();
+    }
+
+    /** Stop delivering messages and close the journal.
+     *
+     * Undelivered messages remain in the journal and will be sent when the spool is
+     * next opened and started.
+     */
+    @Override
+    public void close() throws IOException {
+        LOG.entry();
+        synchronized(this) {
+            running = false;
+            notifyAll();
+        }
+        if (drainer != null) {
+            drainer.interrupt();
+            try {
+                drainer.join(retryDelayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (pipeline != null) {
+            pipeline.shutdown();
+            try {
+                pipeline.awaitTermination(retryDelayMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized(appendLock) {
+            synchronized(this) {
+                journal.force();
+            }
+        }
+        channel.close();
+        LOG.exit();
+    }
+}
@@ -0,0 +1,176 @@
+package com.softwareplumbers.feed.rest.client.spring;
+
+import com.softwareplumbers.feed.Message;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.function.LongSupplier;
+
+/** Filter which detects messages which have already been replicated.
+ *
+ * Uses a pair of Bloom filters covering consecutive time windows. Keys are added to
+ * the current filter and looked up in both; when the window expires, the older filter
+ * is discarded. Memory use is therefore fixed, and a key is remembered for at least
+ * one window and at most two.
+ *
+ * A Bloom filter can report false positives, in which case a message which has not
+ * been replicated will be skipped. The false positive rate holds provided no more
+ * than the expected number of keys is added in a single window.
+ *
+ * @author Jonathan Essex
+ */
+public class ReplicationFilter {
+
+    private final int bits;
+    private final int hashes;
+    private final long windowMillis;
+    private final LongSupplier clock;
+    private long[] current;
+    private long[] previous;
+    private long windowStart;
+    private long lookups = 0;
+    private long hits = 0;
+
+    private static long mix(long hash) {
+        hash = (hash ^ (hash >>> 30)) * 0xbf58476d1ce4e5b9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94d049bb133111ebL;
+        return hash ^ (hash >>> 31);
+    }
+
+    private static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    private static boolean get(long[] filter, int bit) {
+        return (filter[bit >>> 6] & (1L << bit)) != 0;
+    }
+
+    private static String key(UUID serverId, Message message) {
+        return serverId + ":" + message.getName();
+    }
+
+    private int bit(long h1, long h2, int i) {
+        return (int)Long.remainderUnsigned(h1 + i * h2, bits);
+    }
+
+    private boolean contains(long[] filter, long h1, long h2) {
+        for (int i = 0; i < hashes; i++) {
+            if (!get(filter, bit(h1, h2, i))) return false;
+        }
+        return true;
+    }
+
+    private void rotate() {
+        long now = clock.getAsLong();
+        if (now - windowStart < windowMillis) return;
+        previous = now - windowStart < 2 * windowMillis ? current : new long[current.length];
+        current = new long[current.length];
+        windowStart = now;
+    }
+
+    /** Create a new replication filter.
+     *
+     * @param expectedInsertions Expected number of messages replicated in one window
+     * @param falsePositiveRate Acceptable probability of wrongly skipping a message
+     * @param windowMillis Length of time window in milliseconds
+     */
+    public ReplicationFilter(int expectedInsertions, double falsePositiveRate, long windowMillis) {
+        this(expectedInsertions, falsePositiveRate, windowMillis, System::currentTimeMillis);
+    }
+
+    /** Create a new replication filter with the given clock.
+     *
+     * @param expectedInsertions Expected number of messages replicated in one window
+     * @param falsePositiveRate Acceptable probability of wrongly skipping a message
+     * @param windowMillis Length of time window in milliseconds
+     * @param clock Supplies the current time in milliseconds
+     */
+    ReplicationFilter(int expectedInsertions, double falsePositiveRate, long windowMillis, LongSupplier clock) {
+        if (expectedInsertions <= 0) throw new IllegalArgumentException("expectedInsertions must be positive");
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) throw new IllegalArgumentException("falsePositiveRate must be between 0 and 1");
+        double ln2 = Math.log(2);
+        this.bits = (int)Math.max(64, Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (ln2 * ln2)));
+        this.hashes = (int)Math.max(1, Math.round((double)bits / expectedInsertions * ln2));
+        this.windowMillis = windowMillis;
+        this.clock = clock;
+        this.current = new long[(bits + 63) / 64];
+        this.previous = new long[current.length];
+        this.windowStart = clock.getAsLong();
+    }
+
+    /** Check whether a key may already have been added.
+     *
+     * @param key Key to check
+     * @return false if the key has definitely not been added in the current or previous window
+     */
+    public synchronized boolean mightContain(String key) {
+        rotate();
+        long h1 = hash(key);
+        long h2 = mix(h1);
+        boolean result = contains(current, h1, h2) || contains(previous, h1, h2);
+        lookups++;
+        if (result) hits++;
+        return result;
+    }
+
+    /** Add a key to the filter.
+     *
+     * @param key Key to add
+     */
+    public synchronized void add(String key) {
+        rotate();
+        long h1 = hash(key);
+        long h2 = mix(h1);
+        for (int i = 0; i < hashes; i++) {
+            int bit = bit(h1, h2, i);
+            current[bit >>> 6] |= 1L << bit;
+        }
+    }
+
+    /** Check whether a message may already have been replicated to a server.
+     *
+     * @param serverId Server to which the message is replicated
+     * @param message Message to check
+     * @return false if the message has definitely not been replicated recently
+     */
+    public boolean mightContain(UUID serverId, Message message) {
+        return mightContain(key(serverId, message));
+    }
+
+    /** Record that a message has been replicated to a server.
+     *
+     * @param serverId Server to which the message was replicated
+     * @param message Replicated message
+     */
+    public void add(UUID serverId, Message message) {
+        add(key(serverId, message));
+    }
+
+    /** Get the number of lookups performed.
+     *
+     * @return Number of calls to mightContain
+     */
+    public synchronized long getLookups() {
+        return lookups;
+    }
+
+    /** Get the number of lookups which found a duplicate.
+     *
+     * @return Number of calls to mightContain which returned true
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /** Get the proportion of lookups which found a duplicate.
+     *
+     * @return Hit rate between 0 and 1
+     */
+    public synchronized double getHitRate() {
+        return lookups == 0 ? 0 : (double)hits / lookups;
+    }
+}
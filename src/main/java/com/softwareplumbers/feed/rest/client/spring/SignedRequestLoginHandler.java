@@ -42,7 +42,7 @@ public class SignedRequestLoginHandler implements LoginHandler {
     
     private static final XLogger LOG = XLoggerFactory.getXLogger(SignedRequestLoginHandler.class);
 
-    private static String BASE_COOKIE_NAME="DoctaneUserToken";
+    static final String BASE_COOKIE_NAME="DoctaneUserToken";
 
     //------ private variables -------//
 
@@ -51,9 +51,9 @@ public class SignedRequestLoginHandler implements LoginHandler {
     private UriTemplate authURI;
     private String cookieName;
 
-    //------ private static methods -------//
+    //------ static methods -------//
     
-    private static byte[] formatAuthRequest(String serviceAccount) {
+    static byte[] formatAuthRequest(String serviceAccount) {
         LOG.entry(serviceAccount);
         JsonObjectBuilder authRequest = Json.createObjectBuilder();
         authRequest.add("instant", System.currentTimeMillis());
@@ -61,7 +61,7 @@ public class SignedRequestLoginHandler implements LoginHandler {
         return authRequest.build().toString().getBytes();
     }
     
-    private static Optional<HttpCookie> getCookieFromResponse(String cookieName, ResponseEntity<?> response) {
+    static Optional<HttpCookie> getCookieFromResponse(String cookieName, ResponseEntity<?> response) {
         return response.getHeaders().get("Set-Cookie").stream()
             .map(HttpCookie::parse)
             .flatMap(List::stream)
@@ -69,9 +69,7 @@ public class SignedRequestLoginHandler implements LoginHandler {
             .findAny();
     }
 
-    //------ private methods ------///
-    
-    private byte[] signAuthRequest(byte[] request, KeyPairs serviceAccount) {
+    static byte[] signAuthRequest(KeyManager<SecretKeys,KeyPairs> keyManager, byte[] request, KeyPairs serviceAccount) {
         LOG.entry(request, serviceAccount);
         PrivateKey key = keyManager.getKeyPair(serviceAccount).getPrivate();
         Signature sig;
@@ -91,17 +89,19 @@ public class SignedRequestLoginHandler implements LoginHandler {
         }
     }
     
-    private static String extractName(X509Certificate cert) {
+    static String extractName(X509Certificate cert) {
         String dn = cert.getSubjectDN().getName();
         return (dn.startsWith("CN=") || dn.startsWith("cn=")) ? dn.substring(3) : dn; 
     }
+
+    //------ private methods ------///
         
     private Optional<HttpCookie> getCookieFromServer() {
         LOG.entry();
         RestTemplate restTemplate = new RestTemplate();
         X509Certificate cert = keyManager.getCertificate(KeyPairs.DEFAULT_SERVICE_ACCOUNT);
         byte[] authRequestBytes = formatAuthRequest(extractName(cert));
-        byte[] signature = signAuthRequest(authRequestBytes, KeyPairs.DEFAULT_SERVICE_ACCOUNT);
+        byte[] signature = signAuthRequest(keyManager, authRequestBytes, KeyPairs.DEFAULT_SERVICE_ACCOUNT);
         Encoder base64 = Base64.getUrlEncoder();
         String authRequestBase64 = base64.encodeToString(authRequestBytes);
         String sigBase64 = base64.encodeToString(signature);
@@ -123,7 +123,7 @@ public class SignedRequestLoginHandler implements LoginHandler {
         LOG.entry(keyManager, authURI, repository);
         this.keyManager = keyManager;
         this.authURI = authURI;
-        this.cookieName = "DoctaneUserToken/"+repository;
+        this.cookieName = BASE_COOKIE_NAME + "/" + repository;
         LOG.exit();
     }
     
@@ -170,7 +170,7 @@ public class SignedRequestLoginHandler implements LoginHandler {
     @Required
     public void setRepository(String repository) { 
         LOG.entry(repository);
-        this.cookieName = "DoctaneUserToken/"+repository;
+        this.cookieName = BASE_COOKIE_NAME + "/" + repository;
         LOG.exit();
     }
     
@@ -0,0 +1,247 @@
+package com.softwareplumbers.feed.rest.client.spring;
+
+import com.softwareplumbers.feed.FeedExceptions.ServerError;
+import com.softwareplumbers.feed.Message;
+import com.softwareplumbers.feed.MessageIterator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.SocketTimeoutException;
+import java.time.Instant;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpResponse;
+
+/** Receives messages pushed by the server over a single long-lived connection.
+ *
+ * The server writes each message to a chunked response as it is posted. Messages are
+ * decoded incrementally from the response body and passed to a callback. If the
+ * connection is lost, the listener reconnects, resuming from the timestamp of the
+ * last message processed; that message is dropped if the server sends it again.
+ *
+ * A server which supports streaming marks its response with the STREAM_HEADER header.
+ * Since no data is sent while a feed is quiet, the connection should be opened with a
+ * read timeout; when it expires, the listener simply reconnects, which also recovers
+ * from a connection which has silently died.
+ *
+ * The listener stops, recording the reason, if the server rejects the request with
+ * a client error (for example, because the feed does not exist), if the server
+ * responds without streaming, or if the callback throws an exception. In the latter case
+ * the failed message is not counted as processed, so a new listener started from
+ * getLastTimestamp will receive it again.
+ *
+ * @author Jonathan Essex
+ */
+public class StreamingListener implements AutoCloseable {
+
+    private static final XLogger LOG = XLoggerFactory.getXLogger(StreamingListener.class);
+
+    /** Response header set (to 'true') by a server which is streaming messages */
+    public static final String STREAM_HEADER = "X-Feed-Stream";
+
+    /** Opens a streaming connection to the server. */
+    @FunctionalInterface
+    public interface Connector {
+        /** Open a connection.
+         *
+         * @param from Time from which messages should be streamed
+         * @return The server's response
+         * @throws IOException if the connection cannot be opened
+         */
+        ClientHttpResponse connect(Instant from) throws IOException;
+    }
+
+    private final Connector connector;
+    private final Function<InputStream, MessageIterator> decoder;
+    private final Consumer<Message> callback;
+    private final Predicate<Message> filter;
+    private final Thread worker;
+    private long reconnectDelayMillis = 1000;
+    private long closeTimeoutMillis = 5000;
+    private volatile Instant lastTimestamp;
+    private volatile String lastMessageId;
+    private volatile ClientHttpResponse response;
+    private volatile boolean running = true;
+    private volatile Exception failure;
+
+    private void fail(Exception e) {
+        failure = e;
+        running = false;
+    }
+
+    private boolean isLastProcessed(Message message) {
+        return lastMessageId != null
+            && message.getTimestamp().equals(lastTimestamp)
+            && lastMessageId.equals(message.getName().toString());
+    }
+
+    private void receive(ClientHttpResponse response) throws IOException {
+        HttpStatus status = response.getStatusCode();
+        if (status != HttpStatus.OK) {
+            Exception error = FeedServiceImpl.rawError(response);
+            if (status.is4xxClientError()) {
+                LOG.error("Streaming request rejected, listener stopped: {}", error.getMessage());
+                fail(error);
+            } else {
+                LOG.warn("Streaming connection refused: {}", error.getMessage());
+            }
+            return;
+        }
+        if (!"true".equals(response.getHeaders().getFirst(STREAM_HEADER))) {
+            LOG.error("Server does not support streaming, listener stopped");
+            fail(new ServerError("Server does not support streaming"));
+            return;
+        }
+        MessageIterator messages = decoder.apply(response.getBody());
+        while (running && messages.hasNext()) {
+            Message message = messages.next();
+            if (isLastProcessed(message)) continue;
+            if (filter.test(message)) {
+                try {
+                    callback.accept(message);
+                } catch (RuntimeException e) {
+                    LOG.error("Streaming listener callback failed, listener stopped", e);
+                    fail(e);
+                    return;
+                }
+            }
+            lastMessageId = message.getName().toString();
+            lastTimestamp = message.getTimestamp();
+        }
+    }
+
+    private static boolean isIdleTimeout(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SocketTimeoutException) return true;
+        }
+        return false;
+    }
+
+    private void run() {
+        LOG.entry();
+        while (running) {
+            try {
+                response = connector.connect(lastTimestamp);
+                receive(response);
+            } catch (IOException | RuntimeException e) {
+                if (isIdleTimeout(e)) {
+                    LOG.debug("Streaming connection idle, reconnecting");
+                    continue;
+                }
+                if (running) LOG.warn("Streaming connection lost: {}", e.getMessage());
+            } finally {
+                if (response != null) response.close();
+                response = null;
+            }
+            try {
+                if (running) Thread.sleep(reconnectDelayMillis);
+            } catch (InterruptedException e) {
+                running = false;
+            }
+        }
+        LOG.exit();
+    }
+
+    /** Create a streaming listener.
+     *
+     * The listener does not connect until started.
+     *
+     * @param connector Opens a connection to the server
+     * @param decoder Decodes messages from a response body
+     * @param from Time from which messages should be received
+     * @param callback Called for each message received
+     * @param filter Local filter applied to received messages
+     */
+    public StreamingListener(Connector connector, Function<InputStream, MessageIterator> decoder, Instant from, Consumer<Message> callback, Predicate<Message> filter) {
+        this.connector = connector;
+        this.decoder = decoder;
+        this.callback = callback;
+        this.filter = filter;
+        this.lastTimestamp = from;
+        this.worker = new Thread(this::run, "streaming-listener");
+        this.worker.setDaemon(true);
+    }
+
+    /** Set the delay before reconnecting after the connection is lost.
+     *
+     * @param reconnectDelayMillis Delay in milliseconds
+     */
+    public void setReconnectDelayMillis(long reconnectDelayMillis) {
+        this.reconnectDelayMillis = reconnectDelayMillis;
+    }
+
+    /** Start receiving messages.
+     *
+     * @return this listener
+     */
+    public StreamingListener start() {
+        worker.start();
+        return this;
+    }
+
+    /** Set the maximum time close waits for the listener to stop.
+     *
+     * @param closeTimeoutMillis Timeout in milliseconds
+     */
+    public void setCloseTimeoutMillis(long closeTimeoutMillis) {
+        this.closeTimeoutMillis = closeTimeoutMillis;
+    }
+
+    /** Get the timestamp of the last message processed.
+     *
+     * @return Timestamp from which the listener would resume if reconnected
+     */
+    public Instant getLastTimestamp() {
+        return lastTimestamp;
+    }
+
+    /** Get the id of the last message processed.
+     *
+     * @return Id of the last message processed, or null if no message has been processed
+     */
+    public String getLastMessageId() {
+        return lastMessageId;
+    }
+
+    /** Get the reason the listener stopped, if it stopped because of an error.
+     *
+     * @return The error which stopped the listener, or null
+     */
+    public Exception getFailure() {
+        return failure;
+    }
+
+    /** Check whether the listener is still receiving messages.
+     *
+     * @return true if the listener has not been closed and has not failed
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    /** Stop receiving messages and close the connection.
+     *
+     * Waits (up to the close timeout) for the listener thread to finish, so that
+     * the callback is not called after close returns.
+     */
+    @Override
+    public void close() {
+        LOG.entry();
+        running = false;
+        worker.interrupt();
+        ClientHttpResponse current = response;
+        if (current != null) current.close();
+        if (Thread.currentThread() != worker && worker.isAlive()) {
+            try {
+                worker.join(closeTimeoutMillis);
+                if (worker.isAlive()) LOG.warn("Streaming listener did not stop within {}ms", closeTimeoutMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        LOG.exit();
+    }
+}
@@ -0,0 +1,115 @@
+package com.softwareplumbers.feed.rest.client.spring;
+
+import com.softwareplumbers.feed.Feed;
+import com.softwareplumbers.feed.FeedService;
+import com.softwareplumbers.feed.Message;
+import com.softwareplumbers.feed.MessageIterator;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+
+/** Stand-in for a server which supports streaming listen requests.
+ *
+ * Serves the top-level feeds of a backing feed service. Each request holds its
+ * connection open and writes messages to a chunked response as they are received by
+ * long-polling the backing service.
+ *
+ * @author Jonathan Essex
+ */
+public class StandInStreamingServer implements AutoCloseable {
+
+    private static final XLogger LOG = XLoggerFactory.getXLogger(StandInStreamingServer.class);
+    private static final String CONTEXT = "/feed/";
+    private static final char ESCAPE = '$';
+
+    private final FeedService backing;
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private volatile boolean running = true;
+
+    private static Map<String, String> parseQuery(String query) throws UnsupportedEncodingException {
+        Map<String, String> result = new HashMap<>();
+        if (query == null) return result;
+        for (String param : query.split("&")) {
+            int split = param.indexOf('=');
+            if (split > 0) result.put(URLDecoder.decode(param.substring(0, split), "UTF-8"), URLDecoder.decode(param.substring(split + 1), "UTF-8"));
+        }
+        return result;
+    }
+
+    private void stream(Feed feed, Instant from, OutputStream out) throws Exception {
+        while (running) {
+            MessageIterator messages = backing.listen(feed.getName(), from, backing.getServerId(), 1000).get(2, TimeUnit.SECONDS);
+            while (messages.hasNext()) {
+                Message message = messages.next();
+                try (InputStream in = message.toStream()) {
+                    FeedServiceImpl.copy(in, out, 8192);
+                }
+                out.flush();
+                from = message.getTimestamp();
+            }
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath().substring(CONTEXT.length());
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        Instant from = query.containsKey("from") ? Instant.parse(query.get("from")) : Instant.now();
+        Optional<Feed> feed = backing.getFeeds().filter(candidate -> candidate.getName().toString(ESCAPE).equals(path)).findAny();
+        if (!feed.isPresent()) {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+            return;
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/octet-stream");
+        exchange.getResponseHeaders().set(StreamingListener.STREAM_HEADER, "true");
+        exchange.sendResponseHeaders(200, 0);
+        try (OutputStream out = exchange.getResponseBody()) {
+            stream(feed.get(), from, out);
+        } catch (Exception e) {
+            LOG.debug("Streaming connection closed: {}", e.getMessage());
+        }
+    }
+
+    /** Start a stand-in server on an ephemeral port.
+     *
+     * @param backing Service supplying the messages to stream
+     * @throws IOException if the server cannot be started
+     */
+    public StandInStreamingServer(FeedService backing) throws IOException {
+        this.backing = backing;
+        this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext(CONTEXT, this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /** Get the URL of the feeds API of this server.
+     *
+     * @return URL of feeds API
+     */
+    public String getFeedsUrl() {
+        return "http://localhost:" + server.getAddress().getPort() + CONTEXT;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
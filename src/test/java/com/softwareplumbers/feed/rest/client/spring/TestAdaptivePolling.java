@@ -0,0 +1,105 @@
+package com.softwareplumbers.feed.rest.client.spring;
+
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Test;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Jonathan Essex
+ */
+public class TestAdaptivePolling {
+
+    private final AtomicLong now = new AtomicLong(1000000);
+    private final AdaptivePolling polling = new AdaptivePolling(now::get);
+
+    /** Simulate a request which receives the given number of messages over the given time. */
+    private void poll(AdaptivePolling.Subscription subscription, int messages, long millis) {
+        subscription.request();
+        for (int i = 0; i < messages; i++) subscription.received(null);
+        now.addAndGet(millis);
+    }
+
+    @Test
+    public void testIdleSubscriptionWaitsForUpperBound() {
+        polling.setMaxWaitMillis(60000);
+        polling.setMaxLingerMillis(500);
+        AdaptivePolling.Subscription subscription = polling.getSubscription("idle");
+        for (int i = 0; i < 5; i++) poll(subscription, 0, 30000);
+        assertThat(subscription.getWait(30000), equalTo(60000L));
+        assertThat(subscription.getWait(90000), equalTo(90000L));
+        assertThat(subscription.getLinger(), equalTo(0L));
+    }
+
+    @Test
+    public void testBusySubscriptionLingerCapped() {
+        polling.setMinWaitMillis(1000);
+        polling.setMaxLingerMillis(200);
+        polling.setTargetBatchSize(100);
+        AdaptivePolling.Subscription subscription = polling.getSubscription("busy");
+        for (int i = 0; i < 20; i++) poll(subscription, 300, 1000);
+        subscription.request();
+        assertThat(subscription.getMessagesPerSecond(), closeTo(300.0, 1.0));
+        assertThat(subscription.getLinger(), equalTo(200L));
+        assertThat(subscription.getWait(30000), equalTo(30000L));
+    }
+
+    @Test
+    public void testCallerTimeoutRespectedForModerateRate() {
+        polling.setMaxWaitMillis(60000);
+        AdaptivePolling.Subscription subscription = polling.getSubscription("steady");
+        for (int i = 0; i < 20; i++) poll(subscription, 1, 1000);
+        subscription.request();
+        assertThat(subscription.getWait(30000), equalTo(30000L));
+    }
+
+    @Test
+    public void testSlowFeedTreatedAsIdle() {
+        polling.setMaxWaitMillis(60000);
+        AdaptivePolling.Subscription subscription = polling.getSubscription("slow");
+        for (int i = 0; i < 20; i++) poll(subscription, 1, 60000);
+        subscription.request();
+        assertThat(subscription.getWait(30000), equalTo(60000L));
+    }
+
+    @Test
+    public void testShorterBusyWaitsOnlyWhenEnabled() {
+        polling.setMinWaitMillis(1000);
+        AdaptivePolling.Subscription subscription = polling.getSubscription("busy");
+        for (int i = 0; i < 20; i++) poll(subscription, 1, 1000);
+        subscription.request();
+        assertThat(subscription.getWait(30000), equalTo(30000L));
+        polling.setShortenBusyWaits(true);
+        assertThat(subscription.getWait(30000), allOf(greaterThanOrEqualTo(3900L), lessThanOrEqualTo(4100L)));
+    }
+
+    @Test
+    public void testLingerTargetsBatchSize() {
+        polling.setMaxLingerMillis(5000);
+        polling.setTargetBatchSize(100);
+        AdaptivePolling.Subscription subscription = polling.getSubscription("busy");
+        for (int i = 0; i < 20; i++) poll(subscription, 50, 1000);
+        subscription.request();
+        assertThat(subscription.getLinger(), allOf(greaterThanOrEqualTo(1990L), lessThanOrEqualTo(2010L)));
+    }
+
+    @Test
+    public void testLingerZeroWhenDisabled() {
+        AdaptivePolling.Subscription subscription = polling.getSubscription("busy");
+        for (int i = 0; i < 20; i++) poll(subscription, 300, 1000);
+        subscription.request();
+        assertThat(subscription.getLinger(), equalTo(0L));
+    }
+
+    @Test
+    public void testIdleSubscriptionsEvicted() {
+        polling.setIdleTimeoutMillis(60000);
+        AdaptivePolling.Subscription active = polling.getSubscription("active");
+        polling.getSubscription("abandoned").request();
+        for (int i = 0; i < 4; i++) poll(active, 1, 20000);
+        polling.getSubscription("new");
+        assertThat(polling.getSubscriptions().keySet(), containsInAnyOrder("active", "new"));
+        assertThat(polling.getSubscription("active"), sameInstance(active));
+    }
+}
@@ -0,0 +1,100 @@
+package com.softwareplumbers.feed.rest.client.spring;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.json.JsonObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Jonathan Essex
+ */
+public class TestChunkedUpload {
+
+    private static final long SIZE = 64L * 1024 * 1024;
+
+    private HttpServer server;
+    private final AtomicReference<String> transferEncoding = new AtomicReference<>();
+    private final AtomicReference<String> contentLength = new AtomicReference<>();
+    private final AtomicLong received = new AtomicLong();
+
+    /** Generates a stream of the given size without holding it in memory. */
+    private static class GeneratedStream extends InputStream {
+        private long remaining;
+        public GeneratedStream(long size) {
+            this.remaining = size;
+        }
+        @Override
+        public int read() {
+            return remaining-- > 0 ? 'x' : -1;
+        }
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (remaining <= 0) return -1;
+            int count = (int)Math.min(length, remaining);
+            for (int i = 0; i < count; i++) bytes[offset + i] = 'x';
+            remaining -= count;
+            return count;
+        }
+    }
+
+    private static final LoginHandler NO_LOGIN = new LoginHandler() {
+        @Override
+        public void applyCredentials(HttpHeaders mainRequest) {
+        }
+        @Override
+        public String getCredentials() {
+            return "";
+        }
+    };
+
+    @Before
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/feed/", exchange -> {
+            transferEncoding.set(exchange.getRequestHeaders().getFirst("Transfer-Encoding"));
+            contentLength.set(exchange.getRequestHeaders().getFirst("Content-Length"));
+            byte[] buffer = new byte[8192];
+            int read;
+            try (InputStream in = exchange.getRequestBody()) {
+                while ((read = in.read(buffer)) >= 0) received.addAndGet(read);
+            }
+            byte[] response = "{ \"received\": true }".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, response.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response);
+            }
+        });
+        server.start();
+    }
+
+    @After
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testLargeStreamSentChunked() throws IOException {
+        String feedsUrl = "http://localhost:" + server.getAddress().getPort() + "/feed/";
+        FeedServiceImpl service = new FeedServiceImpl(feedsUrl, null, NO_LOGIN);
+        JsonObject result = service.sendStream(URI.create(feedsUrl + "test"), HttpMethod.POST, new GeneratedStream(SIZE));
+        assertThat(result.getBoolean("received"), equalTo(true));
+        assertThat(received.get(), equalTo(SIZE));
+        assertThat(transferEncoding.get(), equalToIgnoringCase("chunked"));
+        assertThat(contentLength.get(), nullValue());
+    }
+}
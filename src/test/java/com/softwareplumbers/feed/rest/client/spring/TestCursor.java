@@ -0,0 +1,100 @@
+package com.softwareplumbers.feed.rest.client.spring;
+
+import com.softwareplumbers.feed.FeedPath;
+import com.softwareplumbers.feed.FeedService;
+import com.softwareplumbers.feed.Message;
+import java.lang.reflect.Proxy;
+import java.time.Instant;
+import java.util.UUID;
+import org.junit.Test;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Jonathan Essex
+ */
+public class TestCursor {
+
+    private static final Instant INIT_TIME = Instant.parse("2020-01-01T00:00:00Z");
+    private static final Instant TIMESTAMP = Instant.parse("2020-01-02T03:04:05.678Z");
+    private static final Instant FALLBACK = Instant.parse("2020-01-03T00:00:00Z");
+    private static final UUID SERVER_ID = UUID.randomUUID();
+
+    private static FeedService service(UUID serverId, Instant initTime) {
+        return (FeedService)Proxy.newProxyInstance(
+            FeedService.class.getClassLoader(),
+            new Class<?>[] { FeedService.class },
+            (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "getServerId": return serverId;
+                    case "getInitTime": return initTime;
+                    default: throw new UnsupportedOperationException(method.getName());
+                }
+            }
+        );
+    }
+
+    private static Message message(FeedPath name, Instant timestamp) {
+        return (Message)Proxy.newProxyInstance(
+            Message.class.getClassLoader(),
+            new Class<?>[] { Message.class },
+            (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "getName": return name;
+                    case "getTimestamp": return timestamp;
+                    default: throw new UnsupportedOperationException(method.getName());
+                }
+            }
+        );
+    }
+
+    @Test
+    public void testJsonRoundTrip() {
+        Cursor cursor = new Cursor(TIMESTAMP, "/feed~id", SERVER_ID, INIT_TIME);
+        Cursor copy = Cursor.fromJson(cursor.toJson());
+        assertThat(copy, equalTo(cursor));
+        assertThat(copy.hashCode(), equalTo(cursor.hashCode()));
+        assertThat(copy.timestamp, equalTo(TIMESTAMP));
+        assertThat(copy.messageId, equalTo("/feed~id"));
+        assertThat(copy.serverId, equalTo(SERVER_ID));
+        assertThat(copy.serverInitTime, equalTo(INIT_TIME));
+    }
+
+    @Test
+    public void testOf() {
+        Cursor cursor = Cursor.of(message(FeedPath.ROOT, TIMESTAMP), service(SERVER_ID, INIT_TIME));
+        assertThat(cursor, equalTo(new Cursor(TIMESTAMP, FeedPath.ROOT.toString(), SERVER_ID, INIT_TIME)));
+    }
+
+    @Test
+    public void testResumeFromSameServer() {
+        Cursor cursor = new Cursor(TIMESTAMP, "id", SERVER_ID, INIT_TIME);
+        FeedService service = service(SERVER_ID, INIT_TIME);
+        assertThat(cursor.resumeFrom(service, FALLBACK), equalTo(TIMESTAMP));
+        assertThat(cursor.hasRestarted(service), equalTo(false));
+    }
+
+    @Test
+    public void testResumeFromRestartedServer() {
+        Cursor cursor = new Cursor(TIMESTAMP, "id", SERVER_ID, INIT_TIME);
+        FeedService service = service(SERVER_ID, INIT_TIME.plusSeconds(3600));
+        assertThat(cursor.resumeFrom(service, FALLBACK), equalTo(TIMESTAMP));
+        assertThat(cursor.hasRestarted(service), equalTo(true));
+    }
+
+    @Test
+    public void testResumeFromDifferentServer() {
+        Cursor cursor = new Cursor(TIMESTAMP, "id", SERVER_ID, INIT_TIME);
+        FeedService service = service(UUID.randomUUID(), INIT_TIME);
+        assertThat(cursor.resumeFrom(service, FALLBACK), equalTo(FALLBACK));
+        assertThat(cursor.hasRestarted(service), equalTo(false));
+    }
+
+    @Test
+    public void testUnprocessedExcludesOnlyLastMessage() {
+        Cursor cursor = Cursor.of(message(FeedPath.ROOT, TIMESTAMP), service(SERVER_ID, INIT_TIME));
+        assertThat(cursor.unprocessed().test(message(FeedPath.ROOT, TIMESTAMP)), equalTo(false));
+        assertThat(cursor.unprocessed().test(message(FeedPath.ROOT, TIMESTAMP.plusMillis(1))), equalTo(true));
+    }
+}
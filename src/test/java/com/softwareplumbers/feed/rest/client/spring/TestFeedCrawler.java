@@ -0,0 +1,157 @@
+package com.softwareplumbers.feed.rest.client.spring;
+
+import com.softwareplumbers.feed.Feed;
+import com.softwareplumbers.feed.FeedService;
+import java.lang.reflect.Proxy;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.junit.After;
+import org.junit.Test;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Jonathan Essex
+ */
+public class TestFeedCrawler {
+
+    private static final FeedService SERVICE = (FeedService)Proxy.newProxyInstance(
+        FeedService.class.getClassLoader(),
+        new Class<?>[] { FeedService.class },
+        (proxy, method, args) -> { throw new UnsupportedOperationException(method.getName()); }
+    );
+
+    private final FeedCrawler crawler = new FeedCrawler(4);
+    private final AtomicInteger fetches = new AtomicInteger();
+
+    /** Stub feed with the given number of children at each level, down to the given depth. */
+    private Feed feed(String name, int fanout, int depth, String failAt) {
+        return (Feed)Proxy.newProxyInstance(
+            Feed.class.getClassLoader(),
+            new Class<?>[] { Feed.class },
+            (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "getChildren":
+                        fetches.incrementAndGet();
+                        if (name.equals(failAt)) throw new IllegalStateException("failed fetching " + name);
+                        if (depth == 0) return Stream.empty();
+                        return IntStream.range(0, fanout).mapToObj(i -> feed(name + "/" + i, fanout, depth - 1, failAt));
+                    case "toString":
+                        return name;
+                    case "hashCode":
+                        return name.hashCode();
+                    case "equals":
+                        return proxy == args[0];
+                    default:
+                        throw new UnsupportedOperationException(method.getName());
+                }
+            }
+        );
+    }
+
+    @After
+    public void closeCrawler() {
+        crawler.close();
+    }
+
+    @Test
+    public void testCrawlWholeTree() {
+        try (Stream<Feed> feeds = crawler.crawl(SERVICE, feed("root", 3, 3, null))) {
+            assertThat(feeds.count(), equalTo(3L + 9L + 27L));
+        }
+    }
+
+    @Test
+    public void testMaxDepth() {
+        crawler.setMaxDepth(2);
+        try (Stream<Feed> feeds = crawler.crawl(SERVICE, feed("root", 3, 5, null))) {
+            List<String> names = feeds.map(Object::toString).collect(Collectors.toList());
+            assertThat(names, hasSize(3 + 9));
+            assertThat(names, everyItem(not(startsWith("root/0/0/"))));
+        }
+    }
+
+    @Test
+    public void testErrorReachesConsumer() {
+        try (Stream<Feed> feeds = crawler.crawl(SERVICE, feed("root", 3, 3, "root/1"))) {
+            feeds.count();
+            fail("expected crawl to fail");
+        } catch (IllegalStateException e) {
+            assertThat(e.getMessage(), equalTo("failed fetching root/1"));
+        }
+    }
+
+    @Test
+    public void testCloseCancelsCrawl() throws InterruptedException {
+        crawler.setBufferSize(8);
+        try (Stream<Feed> feeds = crawler.crawl(SERVICE, feed("root", 10, Integer.MAX_VALUE, null))) {
+            assertThat(feeds.limit(5).count(), equalTo(5L));
+        }
+        Thread.sleep(500);
+        int fetched = fetches.get();
+        Thread.sleep(500);
+        assertThat(fetches.get(), equalTo(fetched));
+    }
+
+    @Test
+    public void testAbandonedCrawlStops() throws InterruptedException {
+        crawler.setBufferSize(8);
+        crawler.setStallTimeoutMillis(200);
+        Stream<Feed> feeds = crawler.crawl(SERVICE, feed("root", 10, Integer.MAX_VALUE, null));
+        assertThat(feeds.findFirst().isPresent(), equalTo(true));
+        Thread.sleep(1000);
+        int fetched = fetches.get();
+        Thread.sleep(500);
+        assertThat(fetches.get(), equalTo(fetched));
+    }
+
+    @Test
+    public void testConsumerResumingAfterStallSeesCancellation() throws InterruptedException {
+        crawler.setBufferSize(4);
+        crawler.setStallTimeoutMillis(300);
+        try (Stream<Feed> feeds = crawler.crawl(SERVICE, feed("root", 10, 3, null))) {
+            Iterator<Feed> iterator = feeds.iterator();
+            assertThat(iterator.hasNext(), equalTo(true));
+            iterator.next();
+            Thread.sleep(1000);
+            try {
+                while (iterator.hasNext()) iterator.next();
+                fail("expected stalled crawl to be cancelled");
+            } catch (CancellationException e) {
+                // a truncated crawl must not look complete
+            }
+        }
+    }
+
+    @Test
+    public void testCloseCrawlerDuringCrawl() throws InterruptedException {
+        FeedCrawler single = new FeedCrawler(1);
+        single.setBufferSize(4);
+        try (Stream<Feed> feeds = single.crawl(SERVICE, feed("root", 10, Integer.MAX_VALUE, null))) {
+            Iterator<Feed> iterator = feeds.iterator();
+            assertThat(iterator.hasNext(), equalTo(true));
+            iterator.next();
+            single.close();
+            try {
+                while (iterator.hasNext()) iterator.next();
+                fail("expected closed crawl to be cancelled");
+            } catch (CancellationException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void testZeroDepthIsEmpty() {
+        crawler.setMaxDepth(0);
+        try (Stream<Feed> feeds = crawler.crawl(SERVICE, feed("root", 3, 3, null))) {
+            assertThat(feeds.count(), equalTo(0L));
+        }
+    }
+}
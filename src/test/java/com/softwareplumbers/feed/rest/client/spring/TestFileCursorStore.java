@@ -0,0 +1,112 @@
+package com.softwareplumbers.feed.rest.client.spring;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Jonathan Essex
+ */
+public class TestFileCursorStore {
+
+    private static final long NEVER = 3600000;
+    private static final UUID SERVER_ID = UUID.randomUUID();
+    private static final Instant INIT_TIME = Instant.parse("2020-01-01T00:00:00Z");
+
+    private Path file;
+
+    private static Cursor cursor(int seconds) {
+        return new Cursor(INIT_TIME.plusSeconds(seconds), "message-" + seconds, SERVER_ID, INIT_TIME);
+    }
+
+    private Optional<Cursor> readBack(String subscription) throws IOException {
+        try (FileCursorStore store = new FileCursorStore(file, NEVER)) {
+            return store.get(subscription);
+        }
+    }
+
+    @Before
+    public void createFile() throws IOException {
+        file = File.createTempFile("cursors", ".json").toPath();
+        Files.delete(file);
+    }
+
+    @After
+    public void deleteFile() throws IOException {
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(file.resolveSibling(file.getFileName() + ".tmp"));
+    }
+
+    @Test
+    public void testFlushAndReopen() throws IOException {
+        try (FileCursorStore store = new FileCursorStore(file, NEVER)) {
+            store.checkpoint("a", cursor(1));
+            store.checkpoint("b", cursor(2));
+            store.checkpoint("a", cursor(3));
+            assertThat(store.get("a"), equalTo(Optional.of(cursor(3))));
+            store.flush();
+            assertThat(readBack("a"), equalTo(Optional.of(cursor(3))));
+            assertThat(readBack("b"), equalTo(Optional.of(cursor(2))));
+            assertThat(readBack("c"), equalTo(Optional.empty()));
+        }
+    }
+
+    @Test
+    public void testUncommittedNotWritten() throws IOException {
+        try (FileCursorStore store = new FileCursorStore(file, NEVER)) {
+            store.checkpoint("a", cursor(1));
+            assertThat(Files.exists(file), equalTo(false));
+        }
+        assertThat(readBack("a"), equalTo(Optional.of(cursor(1))));
+    }
+
+    @Test
+    public void testBatchSizeTriggersCommit() throws Exception {
+        try (FileCursorStore store = new FileCursorStore(file, NEVER)) {
+            store.setBatchSize(3);
+            store.checkpoint("a", cursor(1));
+            store.checkpoint("a", cursor(2));
+            Thread.sleep(200);
+            assertThat(Files.exists(file), equalTo(false));
+            store.checkpoint("a", cursor(3));
+            for (int i = 0; i < 100 && !Files.exists(file); i++) Thread.sleep(10);
+            assertThat(readBack("a"), equalTo(Optional.of(cursor(3))));
+        }
+    }
+
+    @Test
+    public void testBatchCommitRetriedAfterFailure() throws Exception {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.createDirectory(temp);
+        try (FileCursorStore store = new FileCursorStore(file, NEVER)) {
+            store.setBatchSize(2);
+            store.checkpoint("a", cursor(1));
+            store.checkpoint("a", cursor(2));
+            Thread.sleep(200);
+            assertThat(Files.exists(file), equalTo(false));
+            Files.delete(temp);
+            store.checkpoint("a", cursor(3));
+            for (int i = 0; i < 100 && !Files.exists(file); i++) Thread.sleep(10);
+            assertThat(readBack("a"), equalTo(Optional.of(cursor(3))));
+        }
+    }
+
+    @Test
+    public void testCommitIntervalTriggersCommit() throws Exception {
+        try (FileCursorStore store = new FileCursorStore(file, 100)) {
+            store.checkpoint("a", cursor(1));
+            for (int i = 0; i < 100 && !Files.exists(file); i++) Thread.sleep(10);
+            assertThat(readBack("a"), equalTo(Optional.of(cursor(1))));
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.softwareplumbers.feed.rest.client.spring;
+
+import com.softwareplumbers.feed.Feed;
+import com.softwareplumbers.feed.FeedPath;
+import com.softwareplumbers.feed.impl.FeedImpl;
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.json.Json;
+import javax.json.JsonObject;
+import javax.json.stream.JsonParsingException;
+import org.junit.Test;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Jonathan Essex
+ */
+public class TestJsonStreams {
+
+    private final AtomicInteger closed = new AtomicInteger();
+
+    private Stream<JsonObject> children(String json) {
+        return JsonStreams.arrayElements(Json.createParser(new StringReader(json.replace('\'', '"'))), "children", closed::incrementAndGet);
+    }
+
+    private List<String> names(String json) {
+        return children(json).map(child -> child.getString("name")).collect(Collectors.toList());
+    }
+
+    @Test
+    public void testChildrenFirst() {
+        assertThat(names("{ 'children': [ { 'name': 'a' }, { 'name': 'b' } ], 'name': 'root' }"), contains("a", "b"));
+        assertThat(closed.get(), equalTo(1));
+    }
+
+    @Test
+    public void testChildrenLast() {
+        assertThat(names("{ 'name': 'root', 'count': 2, 'ok': true, 'children': [ { 'name': 'a' }, { 'name': 'b' } ] }"), contains("a", "b"));
+        assertThat(closed.get(), equalTo(1));
+    }
+
+    @Test
+    public void testChildrenMissing() {
+        assertThat(names("{ 'name': 'root', 'other': [ { 'name': 'x' } ] }"), empty());
+        assertThat(closed.get(), equalTo(1));
+    }
+
+    @Test
+    public void testNestedValuesBeforeChildrenSkipped() {
+        String json = "{ 'meta': { 'children': [ { 'name': 'x' } ], 'list': [ [ 1, 2 ], { 'a': [] } ] }, "
+            + "'other': [ { 'children': [ { 'name': 'y' } ] } ], "
+            + "'children': [ { 'name': 'a' } ] }";
+        assertThat(names(json), contains("a"));
+    }
+
+    @Test
+    public void testNestedValuesInsideChildrenParsed() {
+        String json = "{ 'children': [ { 'name': 'a', 'children': [ { 'name': 'x' } ], 'info': { 'list': [ 1, [ 2 ] ] } }, "
+            + "[ { 'name': 'ignored' } ], 3, 'text', { 'name': 'b' } ] }";
+        List<JsonObject> children = children(json).collect(Collectors.toList());
+        assertThat(children, hasSize(2));
+        assertThat(children.get(0).getString("name"), equalTo("a"));
+        assertThat(children.get(0).getJsonArray("children").getJsonObject(0).getString("name"), equalTo("x"));
+        assertThat(children.get(0).getJsonObject("info").getJsonArray("list").size(), equalTo(2));
+        assertThat(children.get(1).getString("name"), equalTo("b"));
+    }
+
+    @Test
+    public void testSourceClosedOnStreamClose() {
+        try (Stream<JsonObject> stream = children("{ 'children': [ { 'name': 'a' }, { 'name': 'b' } ] }")) {
+            assertThat(stream.findFirst().get().getString("name"), equalTo("a"));
+            assertThat(closed.get(), equalTo(0));
+        }
+        assertThat(closed.get(), equalTo(1));
+    }
+
+    @Test
+    public void testSourceClosedOnceWhenExhaustedThenClosed() {
+        try (Stream<JsonObject> stream = children("{ 'children': [ { 'name': 'a' } ] }")) {
+            assertThat(stream.count(), equalTo(1L));
+        }
+        assertThat(closed.get(), equalTo(1));
+    }
+
+    @Test
+    public void testNonObjectRootRejected() {
+        try {
+            children("[ { 'name': 'a' } ]");
+            fail("expected JsonParsingException");
+        } catch (JsonParsingException e) {
+            assertThat(closed.get(), equalTo(1));
+        }
+    }
+
+    @Test
+    public void testFeedChildrenReadAsLibraryReadsThem() {
+        JsonObject feed = Json.createReader(new StringReader((
+            "{ 'name': 'parent', 'lastTimestamp': '2020-01-01T00:00:00Z', "
+            + "'children': [ { 'name': 'parent/a' }, { 'name': 'parent/b' } ] }"
+        ).replace('\'', '"'))).readObject();
+        List<FeedPath> expected = Feed.getChildren(feed, FeedImpl::fromJson).map(Feed::getName).collect(Collectors.toList());
+        assertThat(expected, hasSize(2));
+        List<FeedPath> actual = FeedServiceImpl.readChildren(new ByteArrayInputStream(feed.toString().getBytes(StandardCharsets.UTF_8)), closed::incrementAndGet)
+            .map(Feed::getName)
+            .collect(Collectors.toList());
+        assertThat(actual, equalTo(expected));
+        assertThat(closed.get(), equalTo(1));
+    }
+}
@@ -0,0 +1,154 @@
+package com.softwareplumbers.feed.rest.client.spring;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.OutputStream;
+import java.net.HttpCookie;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Jonathan Essex
+ */
+public class TestMultiRepositoryLoginHandler {
+
+    /** Login handler which issues cookies locally instead of contacting a server. */
+    private static class StubLoginHandler extends MultiRepositoryLoginHandler {
+        final Map<String, AtomicInteger> logins = new ConcurrentHashMap<>();
+        final Map<String, CountDownLatch> blocked = new ConcurrentHashMap<>();
+        volatile long maxAge = 3600;
+
+        @Override
+        protected HttpCookie getCookieFromServer(String repository) {
+            int count = logins.computeIfAbsent(repository, key -> new AtomicInteger()).incrementAndGet();
+            CountDownLatch latch = blocked.get(repository);
+            if (latch != null) {
+                try {
+                    latch.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            HttpCookie cookie = new HttpCookie("DoctaneUserToken/" + repository, repository + "-" + count);
+            cookie.setMaxAge(maxAge);
+            return cookie;
+        }
+
+        int logins(String repository) {
+            AtomicInteger count = logins.get(repository);
+            return count == null ? 0 : count.get();
+        }
+    }
+
+    private static String cookie(LoginHandler handler) {
+        HttpHeaders headers = new HttpHeaders();
+        handler.applyCredentials(headers);
+        return headers.getFirst("Cookie");
+    }
+
+    @Test
+    public void testCredentialsCachedPerRepository() {
+        StubLoginHandler handler = new StubLoginHandler();
+        LoginHandler a = handler.forRepository("a");
+        LoginHandler b = handler.forRepository("b");
+        assertThat(cookie(a), containsString("a-1"));
+        assertThat(cookie(a), containsString("a-1"));
+        assertThat(cookie(handler.forRepository("a")), containsString("a-1"));
+        assertThat(cookie(b), containsString("b-1"));
+        assertThat(b.getCredentials(), containsString("b-1"));
+        assertThat(handler.logins("a"), equalTo(1));
+        assertThat(handler.logins("b"), equalTo(1));
+    }
+
+    @Test
+    public void testExpiredCredentialsRefreshed() {
+        StubLoginHandler handler = new StubLoginHandler();
+        handler.maxAge = 0;
+        LoginHandler a = handler.forRepository("a");
+        assertThat(cookie(a), containsString("a-1"));
+        assertThat(cookie(a), containsString("a-2"));
+        assertThat(handler.logins("a"), equalTo(2));
+    }
+
+    @Test
+    public void testConcurrentLoginsToSameRepositoryShared() throws InterruptedException {
+        StubLoginHandler handler = new StubLoginHandler();
+        CountDownLatch release = new CountDownLatch(1);
+        handler.blocked.put("a", release);
+        List<String> cookies = new CopyOnWriteArrayList<>();
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> cookies.add(cookie(handler.forRepository("a"))));
+            threads[i].start();
+        }
+        Thread.sleep(200);
+        release.countDown();
+        for (Thread thread : threads) thread.join(10000);
+        assertThat(cookies, hasSize(threads.length));
+        assertThat(cookies, everyItem(containsString("a-1")));
+        assertThat(handler.logins("a"), equalTo(1));
+    }
+
+    @Test
+    public void testSlowLoginDoesNotBlockOtherRepositories() throws InterruptedException {
+        StubLoginHandler handler = new StubLoginHandler();
+        CountDownLatch release = new CountDownLatch(1);
+        handler.blocked.put("slow", release);
+        Thread slow = new Thread(() -> cookie(handler.forRepository("slow")));
+        slow.start();
+        try {
+            for (int i = 0; i < 100 && handler.logins("slow") == 0; i++) Thread.sleep(10);
+            long start = System.currentTimeMillis();
+            for (int i = 0; i < 50; i++) cookie(handler.forRepository("repository" + i));
+            assertThat(System.currentTimeMillis() - start, lessThan(5000L));
+            assertThat(slow.isAlive(), equalTo(true));
+        } finally {
+            release.countDown();
+            slow.join(10000);
+        }
+    }
+
+    @Test
+    public void testFeedClientUsesRepositoryUrlAndCredentials() throws Exception {
+        List<String> requests = new CopyOnWriteArrayList<>();
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/service/", exchange -> {
+            requests.add(exchange.getRequestURI().getPath() + " " + exchange.getRequestHeaders().getFirst("Cookie"));
+            byte[] response = "{}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, response.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response);
+            }
+        });
+        server.start();
+        String base = "http://localhost:" + server.getAddress().getPort();
+        try (FeedClient client = new FeedClient(base + "/feed/{repository}/", base + "/service/{repository}/", new StubLoginHandler())) {
+            assertThat(client.getService("a"), sameInstance(client.getService("a")));
+            assertThat(client.getService("a"), not(sameInstance(client.getService("b"))));
+            for (String repository : new String[] { "a", "b" }) {
+                try {
+                    client.getService(repository).getServerId();
+                } catch (RuntimeException e) {
+                    // only the request matters here, not the parsed service info
+                }
+            }
+        } finally {
+            server.stop(0);
+        }
+        assertThat(requests, hasSize(2));
+        assertThat(requests.get(0), allOf(startsWith("/service/a/ "), containsString("a-1")));
+        assertThat(requests.get(1), allOf(startsWith("/service/b/ "), containsString("b-1")));
+    }
+}
@@ -0,0 +1,246 @@
+package com.softwareplumbers.feed.rest.client.spring;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Scanner;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Jonathan Essex
+ */
+public class TestOutboundSpool {
+
+    private Path journal;
+
+    private static ByteArrayInputStream message(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Before
+    public void createJournal() throws IOException {
+        journal = File.createTempFile("spool", ".journal").toPath();
+        Files.delete(journal);
+    }
+
+    @After
+    public void deleteJournal() throws IOException {
+        Files.deleteIfExists(journal);
+    }
+
+    @Test
+    public void testMessagesForSameFeedSentInOrder() throws Exception {
+        List<String> received = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch latch = new CountDownLatch(20);
+        try (OutboundSpool spool = new OutboundSpool(journal, 64 * 1024)) {
+            for (int i = 0; i < 20; i++) {
+                assertThat(spool.append(i % 2 == 0 ? "a" : "b", message(Integer.toString(i))), equalTo(true));
+            }
+            spool.start((path, data) -> {
+                received.add(path + ":" + new Scanner(data, "UTF-8").next());
+                latch.countDown();
+            });
+            assertThat(latch.await(10, TimeUnit.SECONDS), equalTo(true));
+        }
+        List<String> a = new ArrayList<>();
+        received.stream().filter(entry -> entry.startsWith("a:")).forEach(a::add);
+        for (int i = 0; i < a.size(); i++) {
+            assertThat(a.get(i), equalTo("a:" + (i * 2)));
+        }
+    }
+
+    @Test
+    public void testUndeliveredMessagesSurviveRestart() throws Exception {
+        try (OutboundSpool spool = new OutboundSpool(journal, 64 * 1024)) {
+            spool.append("a", message("one"));
+            spool.append("a", message("two"));
+        }
+        List<String> received = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch latch = new CountDownLatch(2);
+        try (OutboundSpool spool = new OutboundSpool(journal, 64 * 1024)) {
+            spool.start((path, data) -> {
+                received.add(new Scanner(data, "UTF-8").next());
+                latch.countDown();
+            });
+            assertThat(latch.await(10, TimeUnit.SECONDS), equalTo(true));
+        }
+        assertThat(received, contains("one", "two"));
+    }
+
+    private static List<String> drain(OutboundSpool spool, int count) throws InterruptedException {
+        List<String> received = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch latch = new CountDownLatch(count);
+        spool.start((path, data) -> {
+            received.add(new Scanner(data, "UTF-8").next());
+            latch.countDown();
+        });
+        assertThat(latch.await(10, TimeUnit.SECONDS), equalTo(true));
+        // wait for the checkpoint, so messages are not resent after restart
+        for (int i = 0; i < 100 && !spool.isEmpty(); i++) Thread.sleep(10);
+        return received;
+    }
+
+    private void overwrite(long position, int length) throws IOException {
+        try (FileChannel channel = FileChannel.open(journal, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(length), position);
+        }
+    }
+
+    @Test
+    public void testJournalWrapsAcrossRestarts() throws Exception {
+        for (int round = 0; round < 10; round++) {
+            try (OutboundSpool spool = new OutboundSpool(journal, 200)) {
+                spool.setRetryDelayMillis(100);
+                assertThat(spool.append("a", message("round-" + round + "-one")), equalTo(true));
+                assertThat(spool.append("a", message("round-" + round + "-two")), equalTo(true));
+                assertThat(drain(spool, 2), contains("round-" + round + "-one", "round-" + round + "-two"));
+            }
+        }
+        try (OutboundSpool spool = new OutboundSpool(journal, 200)) {
+            spool.append("a", message("last-one"));
+            spool.append("a", message("last-two"));
+        }
+        try (OutboundSpool spool = new OutboundSpool(journal, 200)) {
+            spool.setRetryDelayMillis(100);
+            assertThat(drain(spool, 2), contains("last-one", "last-two"));
+        }
+    }
+
+    @Test
+    public void testTornRecordDiscardedOnRestart() throws Exception {
+        long used;
+        try (OutboundSpool spool = new OutboundSpool(journal, 64 * 1024)) {
+            spool.append("a", message("one"));
+            used = spool.getUsedBytes();
+            spool.append("a", message("two"));
+        }
+        // Zero the payload of the second record (after the 72 byte journal header, 12 byte
+        // record header and 1 byte path) as if the process died while writing it
+        overwrite(72 + used + 13, 3);
+        try (OutboundSpool spool = new OutboundSpool(journal, 64 * 1024)) {
+            assertThat(spool.getUsedBytes(), equalTo(used));
+            assertThat(drain(spool, 1), contains("one"));
+        }
+    }
+
+    @Test
+    public void testTornHeaderFallsBackToPreviousSlot() throws Exception {
+        try (OutboundSpool spool = new OutboundSpool(journal, 64 * 1024)) {
+            spool.append("a", message("one"));
+            spool.append("a", message("two"));
+        }
+        // The newest header slot was written by the second append; zero it
+        overwrite(8, 32);
+        try (OutboundSpool spool = new OutboundSpool(journal, 64 * 1024)) {
+            assertThat(drain(spool, 1), contains("one"));
+            assertThat(spool.isEmpty(), equalTo(true));
+        }
+    }
+
+    @Test
+    public void testLargeMessageStreamedThroughJournal() throws Exception {
+        byte[] large = new byte[1024 * 1024];
+        for (int i = 0; i < large.length; i++) large[i] = (byte)('a' + i % 26);
+        CountDownLatch latch = new CountDownLatch(1);
+        List<Integer> sizes = Collections.synchronizedList(new ArrayList<>());
+        try (OutboundSpool spool = new OutboundSpool(journal, 4 * 1024 * 1024)) {
+            spool.setBatchBytes(64 * 1024);
+            assertThat(spool.append("a", new ByteArrayInputStream(large)), equalTo(true));
+            spool.start((path, data) -> {
+                int size = 0;
+                while (data.read() >= 0) size++;
+                sizes.add(size);
+                latch.countDown();
+            });
+            assertThat(latch.await(10, TimeUnit.SECONDS), equalTo(true));
+        }
+        assertThat(sizes, contains(large.length));
+    }
+
+    @Test
+    public void testFailingFeedDoesNotBlockOtherFeeds() throws Exception {
+        List<String> received = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch latch = new CountDownLatch(5);
+        try (OutboundSpool spool = new OutboundSpool(journal, 64 * 1024)) {
+            spool.setRetryDelayMillis(100);
+            spool.setMaxAttempts(0);
+            spool.start((path, data) -> {
+                if (path.equals("broken")) throw new IOException("server error");
+                received.add(new Scanner(data, "UTF-8").next());
+                latch.countDown();
+            });
+            spool.append("broken", message("stuck"));
+            for (int i = 0; i < 5; i++) spool.append("healthy", message("message" + i));
+            assertThat(latch.await(10, TimeUnit.SECONDS), equalTo(true));
+            assertThat(spool.isEmpty(), equalTo(false));
+        }
+        assertThat(received, contains("message0", "message1", "message2", "message3", "message4"));
+    }
+
+    @Test
+    public void testPoisonMessageGivenUpAfterMaxAttempts() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        List<String> deadLetters = Collections.synchronizedList(new ArrayList<>());
+        List<String> received = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch latch = new CountDownLatch(1);
+        try (OutboundSpool spool = new OutboundSpool(journal, 64 * 1024)) {
+            spool.setRetryDelayMillis(10);
+            spool.setMaxAttempts(3);
+            spool.setDeadLetters((path, data) -> deadLetters.add(new Scanner(data, "UTF-8").next()));
+            spool.append("a", message("poison"));
+            spool.append("a", message("good"));
+            spool.start((path, data) -> {
+                String text = new Scanner(data, "UTF-8").next();
+                if (text.equals("poison")) {
+                    attempts.incrementAndGet();
+                    throw new IOException("cannot send");
+                }
+                received.add(text);
+                latch.countDown();
+            });
+            assertThat(latch.await(10, TimeUnit.SECONDS), equalTo(true));
+            for (int i = 0; i < 100 && !spool.isEmpty(); i++) Thread.sleep(10);
+            assertThat(spool.isEmpty(), equalTo(true));
+        }
+        assertThat(attempts.get(), equalTo(3));
+        assertThat(deadLetters, contains("poison"));
+        assertThat(received, contains("good"));
+    }
+
+    @Test
+    public void testSyncOnAppend() throws Exception {
+        try (OutboundSpool spool = new OutboundSpool(journal, 64 * 1024)) {
+            spool.setSyncOnAppend(true);
+            assertThat(spool.append("a", message("one")), equalTo(true));
+        }
+        try (OutboundSpool spool = new OutboundSpool(journal, 64 * 1024)) {
+            assertThat(drain(spool, 1), contains("one"));
+        }
+    }
+
+    @Test
+    public void testAppendFailsWhenFull() throws Exception {
+        try (OutboundSpool spool = new OutboundSpool(journal, 200)) {
+            assertThat(spool.append("a", message("0123456789012345678901234567890123456789")), equalTo(true));
+            assertThat(spool.append("a", message("0123456789012345678901234567890123456789")), equalTo(true));
+            assertThat(spool.append("a", message("0123456789012345678901234567890123456789")), equalTo(false));
+        }
+    }
+}
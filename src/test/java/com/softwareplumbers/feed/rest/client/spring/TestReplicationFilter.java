@@ -0,0 +1,53 @@
+package com.softwareplumbers.feed.rest.client.spring;
+
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Test;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Jonathan Essex
+ */
+public class TestReplicationFilter {
+
+    @Test
+    public void testAddedKeysAreFound() {
+        ReplicationFilter filter = new ReplicationFilter(1000, 0.01, 60000);
+        for (int i = 0; i < 1000; i++) filter.add("message" + i);
+        for (int i = 0; i < 1000; i++) assertThat(filter.mightContain("message" + i), equalTo(true));
+        assertThat(filter.getHitRate(), equalTo(1.0));
+    }
+
+    @Test
+    public void testFalsePositiveRate() {
+        ReplicationFilter filter = new ReplicationFilter(1000, 0.01, 60000);
+        for (int i = 0; i < 1000; i++) filter.add("message" + i);
+        int falsePositives = 0;
+        for (int i = 0; i < 10000; i++) if (filter.mightContain("other" + i)) falsePositives++;
+        assertThat(falsePositives, lessThan(200));
+        assertThat(filter.getLookups(), equalTo(10000L));
+    }
+
+    @Test
+    public void testKeysExpireAfterTwoWindows() {
+        AtomicLong now = new AtomicLong(1000);
+        ReplicationFilter filter = new ReplicationFilter(100, 0.01, 50, now::get);
+        filter.add("message");
+        now.addAndGet(60);
+        assertThat(filter.mightContain("message"), equalTo(true));
+        now.addAndGet(60);
+        assertThat(filter.mightContain("message"), equalTo(false));
+    }
+
+    @Test
+    public void testIdleForTwoWindowsForgetsKeys() {
+        AtomicLong now = new AtomicLong(1000);
+        ReplicationFilter filter = new ReplicationFilter(100, 0.01, 50, now::get);
+        filter.add("message");
+        now.addAndGet(49);
+        assertThat(filter.mightContain("message"), equalTo(true));
+        now.addAndGet(101);
+        assertThat(filter.mightContain("message"), equalTo(false));
+    }
+}
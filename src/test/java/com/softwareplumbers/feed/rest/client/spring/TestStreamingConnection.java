@@ -0,0 +1,103 @@
+package com.softwareplumbers.feed.rest.client.spring;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.time.Instant;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+/** Test how a streaming listener handles the connection itself.
+ *
+ * @author Jonathan Essex
+ */
+public class TestStreamingConnection {
+
+    private final AtomicInteger connections = new AtomicInteger();
+    private final CountDownLatch released = new CountDownLatch(1);
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private HttpServer server;
+
+    private StreamingListener listener(String context, long idleTimeoutMillis) {
+        SimpleClientHttpRequestFactory factory = FeedServiceImpl.createStreamingRequestFactory(idleTimeoutMillis);
+        URI uri = URI.create("http://localhost:" + server.getAddress().getPort() + context);
+        StreamingListener listener = new StreamingListener(
+            from -> factory.createRequest(uri, HttpMethod.GET).execute(),
+            body -> {
+                try {
+                    body.read();
+                    throw new IllegalStateException("server sent data");
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            },
+            Instant.EPOCH,
+            message -> { },
+            message -> true
+        );
+        listener.setReconnectDelayMillis(10);
+        return listener.start();
+    }
+
+    @Before
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/plain/", exchange -> {
+            connections.incrementAndGet();
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        server.createContext("/silent/", exchange -> {
+            connections.incrementAndGet();
+            exchange.getResponseHeaders().set(StreamingListener.STREAM_HEADER, "true");
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.flush();
+                released.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    @After
+    public void stopServer() {
+        released.countDown();
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testServerWithoutStreamingStopsListener() throws InterruptedException {
+        try (StreamingListener listener = listener("/plain/", 60000)) {
+            for (int i = 0; i < 100 && listener.isRunning(); i++) Thread.sleep(20);
+            assertThat(listener.isRunning(), equalTo(false));
+            assertThat(listener.getFailure(), notNullValue());
+            assertThat(connections.get(), equalTo(1));
+        }
+    }
+
+    @Test
+    public void testSilentConnectionReopened() throws InterruptedException {
+        try (StreamingListener listener = listener("/silent/", 200)) {
+            for (int i = 0; i < 100 && connections.get() < 3; i++) Thread.sleep(20);
+            assertThat(connections.get(), greaterThanOrEqualTo(3));
+            assertThat(listener.isRunning(), equalTo(true));
+        }
+    }
+}
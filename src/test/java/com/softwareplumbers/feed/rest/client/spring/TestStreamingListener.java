@@ -0,0 +1,122 @@
+package com.softwareplumbers.feed.rest.client.spring;
+
+import com.softwareplumbers.feed.Feed;
+import com.softwareplumbers.feed.FeedService;
+import com.softwareplumbers.feed.Message;
+import com.softwareplumbers.feed.MessageIterator;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Assume;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+/** Test streaming listen against a stand-in server backed by the test service.
+ *
+ * @author Jonathan Essex
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = { LocalConfig.class })
+public class TestStreamingListener {
+
+    private static final int COUNT = 5;
+
+    @Autowired
+    FeedService testService;
+
+    @Autowired
+    LoginHandler loginHandler;
+
+    private Optional<Feed> feedWithMessages() {
+        return testService.getFeeds().filter(candidate -> candidate.getLastTimestamp().isPresent()).findFirst();
+    }
+
+    @Test
+    public void testStreamedMessagesMatchSearch() throws Exception {
+        Optional<Feed> feed = feedWithMessages();
+        Assume.assumeTrue(feed.isPresent());
+
+        List<String> expected = new ArrayList<>();
+        MessageIterator messages = testService.search(feed.get().getName(), testService.getServerId(), Instant.EPOCH, false, Optional.empty(), Optional.empty(), Optional.empty());
+        while (expected.size() < COUNT && messages.hasNext()) expected.add(messages.next().getName().toString());
+
+        List<String> received = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch latch = new CountDownLatch(expected.size());
+        try (StandInStreamingServer server = new StandInStreamingServer(testService)) {
+            FeedServiceImpl client = new FeedServiceImpl(server.getFeedsUrl(), null, loginHandler);
+            try (StreamingListener listener = client.stream(feed.get().getName(), Instant.EPOCH, (Message message) -> {
+                received.add(message.getName().toString());
+                latch.countDown();
+            })) {
+                assertThat(latch.await(30, TimeUnit.SECONDS), equalTo(true));
+            }
+        }
+        assertThat(received.subList(0, expected.size()), equalTo(expected));
+    }
+
+    @Test
+    public void testClientErrorStopsListener() throws Exception {
+        Optional<Feed> feed = feedWithMessages();
+        Assume.assumeTrue(feed.isPresent());
+        try (StandInStreamingServer server = new StandInStreamingServer(testService)) {
+            FeedServiceImpl client = new FeedServiceImpl(server.getFeedsUrl().replace("/feed/", "/missing/"), null, loginHandler);
+            try (StreamingListener listener = client.stream(feed.get().getName(), Instant.EPOCH, (Message message) -> { })) {
+                for (int i = 0; i < 100 && listener.isRunning(); i++) Thread.sleep(50);
+                assertThat(listener.isRunning(), equalTo(false));
+                assertThat(listener.getFailure(), notNullValue());
+            }
+        }
+    }
+
+    @Test
+    public void testCallbackFailureStopsWithoutSkippingMessage() throws Exception {
+        Optional<Feed> feed = feedWithMessages();
+        Assume.assumeTrue(feed.isPresent());
+        List<Message> received = Collections.synchronizedList(new ArrayList<>());
+        try (StandInStreamingServer server = new StandInStreamingServer(testService)) {
+            FeedServiceImpl client = new FeedServiceImpl(server.getFeedsUrl(), null, loginHandler);
+            try (StreamingListener listener = client.stream(feed.get().getName(), Instant.EPOCH, (Message message) -> {
+                received.add(message);
+                if (received.size() == 2) throw new IllegalStateException("callback failed");
+            })) {
+                for (int i = 0; i < 600 && listener.isRunning(); i++) Thread.sleep(50);
+                Assume.assumeTrue(received.size() >= 2);
+                assertThat(listener.getFailure(), instanceOf(IllegalStateException.class));
+                assertThat(received, hasSize(2));
+                assertThat(listener.getLastTimestamp(), equalTo(received.get(0).getTimestamp()));
+                assertThat(listener.getLastMessageId(), equalTo(received.get(0).getName().toString()));
+            }
+        }
+    }
+
+    @Test
+    public void testNoCallbacksAfterClose() throws Exception {
+        Optional<Feed> feed = feedWithMessages();
+        Assume.assumeTrue(feed.isPresent());
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch first = new CountDownLatch(1);
+        try (StandInStreamingServer server = new StandInStreamingServer(testService)) {
+            FeedServiceImpl client = new FeedServiceImpl(server.getFeedsUrl(), null, loginHandler);
+            StreamingListener listener = client.stream(feed.get().getName(), Instant.EPOCH, (Message message) -> {
+                calls.incrementAndGet();
+                first.countDown();
+                try { Thread.sleep(100); } catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+            });
+            assertThat(first.await(30, TimeUnit.SECONDS), equalTo(true));
+            listener.close();
+            int closed = calls.get();
+            Thread.sleep(500);
+            assertThat(calls.get(), equalTo(closed));
+        }
+    }
+}